@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Двоичные форматы ответов для внутренних сервисов, выгружающих фильмы и пользователей: Smile
+ * (application/x-jackson-smile) и CBOR (application/cbor). Формат выбирается по заголовку Accept.
+ * Если заголовка нет или он допускает любой тип, ответ по-прежнему в JSON.
+ * Конвертеры строятся из настроенного Spring Boot {@link Jackson2ObjectMapperBuilder}, поэтому используют те же
+ * модули и настройки, что и JSON (в том числе {@link FilmorateJsonModule}), и отличаются только кодированием.
+ * Потоковые эндпоинты (/films/stream, /users/stream) пишут ответ сами и остаются в JSON.
+ */
+@Configuration
+public class BinaryFormatsConfiguration implements WebMvcConfigurer {
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+
+    /**
+     * @param builders источник построителей ObjectMapper. Построитель в Spring Boot - прототип и изменяется при
+     *                 настройке, поэтому для каждого формата берется новый.
+     */
+    public BinaryFormatsConfiguration(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        this.builders = builders;
+    }
+
+    /**
+     * Добавление конвертеров Smile и CBOR в конец списка, после JSON: при равнозначном Accept выбирается первый
+     * подходящий конвертер. Конвертеры, добавленные Spring по умолчанию без настроек приложения, заменяются.
+     * Фабрика задается через {@link Jackson2ObjectMapperBuilder#factory}: статические методы
+     * {@link Jackson2ObjectMapperBuilder#smile()} и {@link Jackson2ObjectMapperBuilder#cbor()} создают новый
+     * построитель без настроек приложения.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter
+                || converter instanceof MappingJackson2CborHttpMessageConverter);
+        converters.add(new MappingJackson2SmileHttpMessageConverter(
+                builders.getObject().factory(new SmileFactory()).build()));
+        converters.add(new MappingJackson2CborHttpMessageConverter(
+                builders.getObject().factory(new CBORFactory()).build()));
+    }
+}
@@ -6,9 +6,12 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.yandex.practicum.filmorate.exception.FriendsException;
+import ru.yandex.practicum.filmorate.exception.LikesOverloadException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.ErrorResponse;
 
+import javax.validation.ConstraintViolationException;
+
 /**
  * Класс предназначен для обработки исключений.
  */
@@ -43,6 +46,34 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage());
     }
 
+    /**
+     * Обработка исключений, связанных с переполнением буфера отложенной записи лайков.
+     *
+     * @param e исключение типа LikesOverloadException, выбрасываемое, если буфер лайков не освободился за отведенное
+     *          время.
+     * @return объект ответа, содержащий сообщение об ошибке.
+     */
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleLikesOverloadException(final LikesOverloadException e) {
+        log.warn("Error: " + e.getMessage());
+        return new ErrorResponse(e.getMessage());
+    }
+
+    /**
+     * Обработка исключений, связанных с недопустимыми параметрами запроса.
+     *
+     * @param e исключение типа ConstraintViolationException, выбрасываемое при нарушении ограничений на параметры
+     *          запроса (например, размер страницы).
+     * @return объект ответа, содержащий сообщение об ошибке.
+     */
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleConstraintViolationException(final ConstraintViolationException e) {
+        log.info("Error: " + e.getMessage());
+        return new ErrorResponse(e.getMessage());
+    }
+
     /**
      * Обработка прочих непроверямых исключений.
      *
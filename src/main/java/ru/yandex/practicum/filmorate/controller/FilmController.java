@@ -1,15 +1,31 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.film.FilmSuggestion;
+import ru.yandex.practicum.filmorate.model.user.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.service.search.FilmTitleAutocomplete;
 import ru.yandex.practicum.filmorate.service.validation.Marker;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+import javax.validation.groups.Default;
+import java.time.LocalDate;
+import java.time.Year;
 import java.util.List;
 
 
@@ -21,21 +37,86 @@ import java.util.List;
 @Validated
 @RequiredArgsConstructor
 public class FilmController {
+    /**
+     * Максимальное число фильмов в одном запросе на пакетное создание.
+     */
+    private static final int MAX_BATCH_SIZE = 10_000;
 
     /**
      * Сервис фильмов.
      */
     private final FilmService filmService;
+    /**
+     * Сервис пользователей, выдающий пользователей, лайкнувших фильмы.
+     */
+    private final UserService userService;
+    /**
+     * Объект, сериализующий фильмы при потоковой выдаче.
+     */
+    private final ObjectMapper objectMapper;
 
     /**
      * Эндпоинт GET /films.
+     * Без параметров возвращает все фильмы. Если указан limit или after, возвращает страницу фильмов, упорядоченных
+     * по id, а курсор следующей страницы передает в заголовке X-Next-Cursor.
      *
+     * @param limit максимальное число фильмов на странице.
+     * @param after курсор - id фильма, после которого начинается страница.
      * @return список фильмов.
      */
     @GetMapping("/films")
-    public List<Film> getFilms() {
-        log.info("GET /films");
-        return filmService.getAll();
+    public ResponseEntity<List<Film>> getFilms(@RequestParam(required = false) @Positive @Max(Page.MAX_LIMIT)
+                                               Integer limit,
+                                               @RequestParam(required = false) Integer after) {
+        log.info("GET /films: limit = " + limit + ", after = " + after);
+        if (limit == null && after == null) return ResponseEntity.ok(filmService.getAll());
+        return filmService.getPage(after, limit == null ? Page.DEFAULT_LIMIT : limit).toResponseEntity();
+    }
+
+    /**
+     * Эндпоинт GET /films/stream.
+     * Предназначен для выгрузки всех фильмов без их накопления в списке. Расход памяти не зависит от числа фильмов,
+     * если БД отдает строки по мере чтения: для встроенного H2 это режим LAZY_QUERY_EXECUTION в URL источника данных.
+     *
+     * @return JSON-массив всех фильмов.
+     */
+    @GetMapping("/films/stream")
+    public ResponseEntity<StreamingResponseBody> streamFilms() {
+        log.info("GET /films/stream");
+        return JsonArrayStreams.<Film>of(objectMapper, filmService::forEachFilm);
+    }
+
+    /**
+     * Эндпоинт GET /films/search.
+     * Предназначен для полнотекстового поиска фильмов по названию и описанию. Находятся фильмы, содержащие все слова
+     * запроса; более релевантные и более популярные фильмы идут первыми.
+     *
+     * @param query поисковый запрос.
+     * @param limit максимальное число найденных фильмов.
+     * @return список найденных фильмов.
+     */
+    @GetMapping("/films/search")
+    public List<Film> searchFilms(@RequestParam String query,
+                                  @RequestParam(defaultValue = "10") @Positive @Max(Page.MAX_LIMIT) int limit) {
+        log.info("GET /films/search: query = " + query + ", limit = " + limit);
+        return filmService.search(query, limit);
+    }
+
+    /**
+     * Эндпоинт GET /films/autocomplete.
+     * Предназначен для подсказок при вводе названия фильма: возвращает самые популярные фильмы, название которых
+     * или одно из слов названия начинается с введенного текста.
+     *
+     * @param prefix введенное начало названия.
+     * @param limit  максимальное число подсказок.
+     * @return список подсказок (id и название фильма).
+     */
+    @GetMapping("/films/autocomplete")
+    public List<FilmSuggestion> autocomplete(@RequestParam String prefix,
+                                             @RequestParam(defaultValue = "10") @Positive
+                                             @Max(FilmTitleAutocomplete.TOP_SIZE) int limit) {
+        log.info("GET /films/autocomplete: prefix = " + prefix + ", limit = " + limit);
+        return filmService.autocomplete(prefix, limit);
     }
 
     /**
@@ -112,6 +193,23 @@ public class FilmController {
         return film;
     }
 
+    /**
+     * Эндпоинт POST /films/batch.
+     * Предназначен для создания сразу нескольких фильмов в одной транзакции: либо создаются все фильмы, либо ни один.
+     *
+     * @param films тело запроса - массив фильмов.
+     * @return id созданных фильмов в порядке их следования в запросе.
+     */
+    @PostMapping("/films/batch")
+    @Validated({Marker.OnCreate.class, Default.class})
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<Integer> addFilms(@RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<@Valid Film> films) {
+        log.info("POST /films/batch: получено фильмов " + films.size());
+        List<Integer> ids = filmService.createAll(films);
+        log.info("POST /films/batch: созданы фильмы " + ids);
+        return ids;
+    }
+
     /**
      * Эндпоинт PUT /films
      *
@@ -159,16 +257,56 @@ public class FilmController {
 
     /**
      * Эндпоинт /films/popular. Предназначен для получения списка наиболее популярных фильмов.
+     * Необязательные параметры genreId, mpaId и year ограничивают выборку фильмами с этим жанром, MPA и годом выпуска.
      *
-     * @param count число фильмов, которые будут включены в возвращаемый список.
+     * @param count   число фильмов, которые будут включены в возвращаемый список.
+     * @param genreId id жанра фильмов.
+     * @param mpaId   id MPA фильмов.
+     * @param year    год выпуска фильмов, не раньше года первого коммерческого фильма. Сверху ограничен так,
+     *                чтобы начало следующего года было представимо в {@link LocalDate}.
      * @return указанное число наиболее популярных фильмов фильмов.
      */
     @GetMapping("/films/popular")
     @ResponseStatus(HttpStatus.OK)
-    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
-        log.info("GET /films/popular: получен для count = " + count);
-        List<Film> popularFilms = filmService.getPopulars(count);
+    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") @Positive @Max(Page.MAX_LIMIT) int count,
+                                      @RequestParam(required = false) Integer genreId,
+                                      @RequestParam(required = false) Integer mpaId,
+                                      @RequestParam(required = false) @Min(Film.FIRST_COMMERCIAL_MOVIE_YEAR)
+                                      @Max(Year.MAX_VALUE - 1) Integer year) {
+        log.info("GET /films/popular: получен для count = " + count + ", genreId = " + genreId +
+                ", mpaId = " + mpaId + ", year = " + year);
+        List<Film> popularFilms = filmService.getPopulars(count, genreId, mpaId, year);
         log.info("Возвращен список популярных фильмов: " + popularFilms);
         return popularFilms;
     }
+
+    /**
+     * Эндпоинт GET /films/{id}/likes/count. Предназначен для получения числа лайков фильма.
+     *
+     * @param filmId id фильма.
+     * @return число лайков.
+     */
+    @GetMapping("/films/{id}/likes/count")
+    @ResponseStatus(HttpStatus.OK)
+    public int getLikesCount(@PathVariable("id") int filmId) {
+        log.info("GET /films/{id}/likes/count: получен для id = " + filmId);
+        return filmService.getLikesCount(filmId);
+    }
+
+    /**
+     * Эндпоинт GET /films/{id}/common-likers/{otherId}.
+     * Предназначен для получения пользователей, поставивших лайк обоим фильмам.
+     *
+     * @param filmId      первый фильм.
+     * @param otherFilmId второй фильм.
+     * @return список пользователей по возрастанию id.
+     */
+    @GetMapping("/films/{id}/common-likers/{otherId}")
+    @ResponseStatus(HttpStatus.OK)
+    public List<User> getCommonLikers(@PathVariable("id") int filmId, @PathVariable("otherId") int otherFilmId) {
+        log.info("GET /films/{id}/common-likers/{otherId}: получен для id = " + filmId + ", otherId = " + otherFilmId);
+        List<User> users = userService.getCommonLikers(filmId, otherFilmId);
+        log.info("Возвращен список пользователей, лайкнувших оба фильма: " + users);
+        return users;
+    }
 }
@@ -0,0 +1,181 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.user.User;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Модуль Jackson с сериализаторами фильмов, пользователей, жанров и MPA, которые пишут поля напрямую
+ * в {@link JsonGenerator} без обхода свойств через рефлексию. Имена полей закодированы заранее.
+ * Результат совпадает с сериализацией по умолчанию: те же поля в том же порядке, null записывается как null,
+ * даты - строкой в формате ISO (yyyy-MM-dd).
+ * Spring Boot регистрирует модуль во всех ObjectMapper приложения, так как он объявлен бином.
+ * При добавлении поля в модель его нужно добавить и в сериализатор.
+ */
+@Component
+public class FilmorateJsonModule extends SimpleModule {
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString RELEASE_DATE = new SerializedString("releaseDate");
+    private static final SerializedString DURATION = new SerializedString("duration");
+    private static final SerializedString GENRES = new SerializedString("genres");
+    private static final SerializedString MPA = new SerializedString("mpa");
+    private static final SerializedString RATE = new SerializedString("rate");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString LOGIN = new SerializedString("login");
+    private static final SerializedString BIRTHDAY = new SerializedString("birthday");
+
+    public FilmorateJsonModule() {
+        super("FilmorateJsonModule");
+        addSerializer(new FilmSerializer());
+        addSerializer(new UserSerializer());
+        addSerializer(new GenreSerializer());
+        addSerializer(new MpaSerializer());
+    }
+
+    private static void writeFilm(Film film, JsonGenerator generator) throws IOException {
+        generator.writeStartObject(film);
+        generator.writeFieldName(ID);
+        writeNumber(film.getId(), generator);
+        generator.writeFieldName(NAME);
+        generator.writeString(film.getName());
+        generator.writeFieldName(DESCRIPTION);
+        generator.writeString(film.getDescription());
+        generator.writeFieldName(RELEASE_DATE);
+        writeDate(film.getReleaseDate(), generator);
+        generator.writeFieldName(DURATION);
+        generator.writeNumber(film.getDuration());
+        generator.writeFieldName(GENRES);
+        writeGenres(film.getGenres(), generator);
+        generator.writeFieldName(MPA);
+        writeMpa(film.getMpa(), generator);
+        generator.writeFieldName(RATE);
+        generator.writeNumber(film.getRate());
+        generator.writeEndObject();
+    }
+
+    private static void writeUser(User user, JsonGenerator generator) throws IOException {
+        generator.writeStartObject(user);
+        generator.writeFieldName(ID);
+        writeNumber(user.getId(), generator);
+        generator.writeFieldName(EMAIL);
+        generator.writeString(user.getEmail());
+        generator.writeFieldName(LOGIN);
+        generator.writeString(user.getLogin());
+        generator.writeFieldName(NAME);
+        generator.writeString(user.getName());
+        generator.writeFieldName(BIRTHDAY);
+        writeDate(user.getBirthday(), generator);
+        generator.writeEndObject();
+    }
+
+    private static void writeGenres(Set<Film.Genre> genres, JsonGenerator generator) throws IOException {
+        if (genres == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray(genres, genres.size());
+        for (Film.Genre genre : genres) {
+            writeGenre(genre, generator);
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeGenre(Film.Genre genre, JsonGenerator generator) throws IOException {
+        if (genre == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject(genre);
+        generator.writeFieldName(ID);
+        generator.writeNumber(genre.getId());
+        generator.writeFieldName(NAME);
+        generator.writeString(genre.getName());
+        generator.writeEndObject();
+    }
+
+    private static void writeMpa(Film.MotionPictureAssociation mpa, JsonGenerator generator) throws IOException {
+        if (mpa == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject(mpa);
+        generator.writeFieldName(ID);
+        generator.writeNumber(mpa.getId());
+        generator.writeFieldName(NAME);
+        generator.writeString(mpa.getName());
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(Integer value, JsonGenerator generator) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    private static void writeDate(LocalDate date, JsonGenerator generator) throws IOException {
+        if (date == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(date.toString());
+        }
+    }
+
+    private static class FilmSerializer extends StdSerializer<Film> {
+        private FilmSerializer() {
+            super(Film.class);
+        }
+
+        @Override
+        public void serialize(Film film, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            writeFilm(film, generator);
+        }
+    }
+
+    private static class UserSerializer extends StdSerializer<User> {
+        private UserSerializer() {
+            super(User.class);
+        }
+
+        @Override
+        public void serialize(User user, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            writeUser(user, generator);
+        }
+    }
+
+    private static class GenreSerializer extends StdSerializer<Film.Genre> {
+        private GenreSerializer() {
+            super(Film.Genre.class);
+        }
+
+        @Override
+        public void serialize(Film.Genre genre, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            writeGenre(genre, generator);
+        }
+    }
+
+    private static class MpaSerializer extends StdSerializer<Film.MotionPictureAssociation> {
+        private MpaSerializer() {
+            super(Film.MotionPictureAssociation.class);
+        }
+
+        @Override
+        public void serialize(Film.MotionPictureAssociation mpa, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            writeMpa(mpa, generator);
+        }
+    }
+}
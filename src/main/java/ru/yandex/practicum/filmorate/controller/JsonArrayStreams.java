@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Класс предназначен для потоковой записи сущностей в тело ответа в виде JSON-массива.
+ * Сущности сериализуются по мере получения от источника и не накапливаются этим классом; держит ли источник
+ * в памяти весь результат запроса, зависит от репозитория и настроек БД.
+ */
+final class JsonArrayStreams {
+    private JsonArrayStreams() {
+    }
+
+    /**
+     * Формирование потокового ответа.
+     *
+     * @param objectMapper объект, сериализующий сущности.
+     * @param source       источник сущностей: передает каждую сущность переданному ему обработчику.
+     * @param <T>          тип сущностей.
+     * @return ответ, тело которого пишется в выходной поток после возврата из метода контроллера.
+     */
+    static <T> ResponseEntity<StreamingResponseBody> of(ObjectMapper objectMapper, Consumer<Consumer<T>> source) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.writeStartArray();
+                source.accept(item -> {
+                    try {
+                        generator.writeObject(item);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
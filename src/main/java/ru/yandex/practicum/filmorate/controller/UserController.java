@@ -1,15 +1,23 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.film.Film;
 import ru.yandex.practicum.filmorate.model.user.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.service.validation.Marker;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Positive;
 import java.util.List;
 
 
@@ -22,17 +30,45 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
+    /**
+     * Сервис фильмов, подбирающий и выдающий фильмы для пользователя.
+     */
+    private final FilmService filmService;
+    /**
+     * Объект, сериализующий пользователей при потоковой выдаче.
+     */
+    private final ObjectMapper objectMapper;
 
     /**
      * Эндпоинт GET /users.
+     * Без параметров возвращает всех пользователей. Если указан limit или after, возвращает страницу пользователей,
+     * упорядоченных по id, а курсор следующей страницы передает в заголовке X-Next-Cursor.
      *
+     * @param limit максимальное число пользователей на странице.
+     * @param after курсор - id пользователя, после которого начинается страница.
      * @return список пользователей.
      */
     @GetMapping("/users")
     @ResponseStatus(HttpStatus.OK)
-    public List<User> getUsers() {
-        log.info("GET /users/");
-        return userService.getAll();
+    public ResponseEntity<List<User>> getUsers(@RequestParam(required = false) @Positive @Max(Page.MAX_LIMIT)
+                                               Integer limit,
+                                               @RequestParam(required = false) Integer after) {
+        log.info("GET /users/: limit = " + limit + ", after = " + after);
+        if (limit == null && after == null) return ResponseEntity.ok(userService.getAll());
+        return userService.getPage(after, limit == null ? Page.DEFAULT_LIMIT : limit).toResponseEntity();
+    }
+
+    /**
+     * Эндпоинт GET /users/stream.
+     * Предназначен для выгрузки всех пользователей без их накопления в списке. Расход памяти не зависит от числа
+     * пользователей, если БД отдает строки по мере чтения (для встроенного H2 - в режиме LAZY_QUERY_EXECUTION).
+     *
+     * @return JSON-массив всех пользователей.
+     */
+    @GetMapping("/users/stream")
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        log.info("GET /users/stream");
+        return JsonArrayStreams.<User>of(objectMapper, userService::forEachUser);
     }
 
     /**
@@ -124,16 +160,84 @@ public class UserController {
      * @param id      пользователь, список друзей которого вернется.
      * @param confirm указывает на то, нужно ли вернуть подтвержденных друзей. Подтвержденными друзьями считаются те,
      *                кто отправлял запрос на друзья в ответ
+     * @param limit   максимальное число друзей на странице. Если указан limit или after, возвращается страница друзей,
+     *                упорядоченных по id, а курсор следующей страницы передается в заголовке X-Next-Cursor.
+     * @param after   курсор - id друга, после которого начинается страница.
      * @return список друзей пользователя.
      */
     @GetMapping("/users/{id}/friends")
     @ResponseStatus(HttpStatus.OK)
-    public List<User> getFriends(@PathVariable("id") int id,
-                                 @RequestParam(required = false, defaultValue = "false") boolean confirm) {
+    public ResponseEntity<List<User>> getFriends(@PathVariable("id") int id,
+                                                 @RequestParam(required = false, defaultValue = "false")
+                                                 boolean confirm,
+                                                 @RequestParam(required = false) @Positive @Max(Page.MAX_LIMIT)
+                                                 Integer limit,
+                                                 @RequestParam(required = false) Integer after) {
         log.info("GET /users/{id}/friends: получен для id = " + id + ". Параметр confirm = " + confirm);
-        List<User> friends = userService.getFriends(id, confirm);
-        log.info("Возвращен список друзей: " + friends);
-        return friends;
+        if (limit == null && after == null) {
+            List<User> friends = userService.getFriends(id, confirm);
+            log.info("Возвращен список друзей: " + friends);
+            return ResponseEntity.ok(friends);
+        }
+
+        Page<User> friends = userService.getFriendsPage(id, confirm, after, limit == null ? Page.DEFAULT_LIMIT : limit);
+        log.info("Возвращена страница друзей: " + friends.getItems());
+        return friends.toResponseEntity();
+    }
+
+    /**
+     * Эндпоинт GET /users/{id}/friends/recommendations.
+     * Предназначен для получения рекомендаций друзей: друзей друзей пользователя, упорядоченных по убыванию числа
+     * общих друзей. Друзья пользователя и пользователи, отправившие ему заявку, не рекомендуются.
+     *
+     * @param id    пользователь, для которого подбираются рекомендации.
+     * @param limit максимальное число рекомендаций.
+     * @return список рекомендуемых пользователей.
+     */
+    @GetMapping("/users/{id}/friends/recommendations")
+    @ResponseStatus(HttpStatus.OK)
+    public List<User> getFriendRecommendations(@PathVariable("id") int id,
+                                               @RequestParam(defaultValue = "10") @Positive @Max(Page.MAX_LIMIT)
+                                               int limit) {
+        log.info("GET /users/{id}/friends/recommendations: получен для id = " + id + ", limit = " + limit);
+        List<User> recommendations = userService.getFriendRecommendations(id, limit);
+        log.info("Возвращен список рекомендаций: " + recommendations);
+        return recommendations;
+    }
+
+    /**
+     * Эндпоинт GET /users/{id}/recommendations. Предназначен для получения фильмов, которые понравились
+     * пользователям с похожими лайками и которые пользователь еще не лайкнул.
+     *
+     * @param userId id пользователя, для которого подбираются рекомендации.
+     * @param limit  максимальное число рекомендуемых фильмов.
+     * @return список рекомендуемых фильмов по убыванию оценки.
+     */
+    @GetMapping("/users/{id}/recommendations")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Film> getRecommendations(@PathVariable("id") int userId,
+                                         @RequestParam(defaultValue = "10") @Positive @Max(Page.MAX_LIMIT) int limit) {
+        log.info("GET /users/{id}/recommendations: получен для id = " + userId + ", limit = " + limit);
+        List<Film> films = filmService.getRecommendations(userId, limit);
+        log.info("Возвращен список рекомендуемых фильмов: " + films);
+        return films;
+    }
+
+    /**
+     * Эндпоинт GET /users/{id}/likes/common/{otherId}.
+     * Предназначен для получения фильмов, которым поставили лайк оба пользователя.
+     *
+     * @param userId      первый пользователь.
+     * @param otherUserId второй пользователь.
+     * @return список фильмов по возрастанию id.
+     */
+    @GetMapping("/users/{id}/likes/common/{otherId}")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Film> getCommonLikedFilms(@PathVariable("id") int userId, @PathVariable("otherId") int otherUserId) {
+        log.info("GET /users/{id}/likes/common/{otherId}: получен для id = " + userId + ", otherId = " + otherUserId);
+        List<Film> films = filmService.getCommonLikedFilms(userId, otherUserId);
+        log.info("Возвращен список фильмов, лайкнутых обоими пользователями: " + films);
+        return films;
     }
 
     /**
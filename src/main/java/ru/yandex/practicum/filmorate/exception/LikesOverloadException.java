@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.exception;
+
+/**
+ * Исключение, связанное с переполнением буфера отложенной записи лайков.
+ */
+public class LikesOverloadException extends RuntimeException {
+    /**
+     * @param message сообщение, содержащие информацию об ошибке.
+     */
+    public LikesOverloadException(String message) {
+        super(message);
+    }
+}
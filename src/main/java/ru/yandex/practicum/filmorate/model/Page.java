@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Класс описывает страницу сущностей при постраничной выдаче по курсору (keyset pagination).
+ * Сущности на странице упорядочены по id, курсор следующей страницы - id последней сущности на странице.
+ *
+ * @param <T> тип сущностей на странице.
+ */
+@Getter
+public class Page<T> {
+    /**
+     * Заголовок ответа, в который помещается курсор следующей страницы.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    /**
+     * Размер страницы, если он не указан в запросе.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+    /**
+     * Максимальный размер страницы.
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<T> items;
+    /**
+     * Курсор следующей страницы или null, если страница последняя.
+     */
+    @Nullable
+    private final Integer nextCursor;
+
+    private Page(List<T> items, @Nullable Integer nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Формирование страницы из результата запроса к репозиторию, в котором запрошено на одну сущность больше
+     * размера страницы. Наличие этой лишней сущности означает, что следующая страница существует.
+     *
+     * @param items сущности, полученные из репозитория (не более limit + 1).
+     * @param limit размер страницы.
+     * @param idOf  функция получения id сущности.
+     * @param <T>   тип сущностей.
+     * @return страница сущностей.
+     */
+    public static <T> Page<T> of(List<T> items, int limit, Function<T, Integer> idOf) {
+        if (items.size() <= limit) return new Page<>(items, null);
+
+        List<T> pageItems = items.subList(0, limit);
+
+        return new Page<>(pageItems, idOf.apply(pageItems.get(limit - 1)));
+    }
+
+    /**
+     * Формирование ответа: сущности страницы в теле, курсор следующей страницы (если есть) в заголовке.
+     *
+     * @return ответ со страницей сущностей.
+     */
+    public ResponseEntity<List<T>> toResponseEntity() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+        if (nextCursor != null) response.header(NEXT_CURSOR_HEADER, String.valueOf(nextCursor));
+        return response.body(items);
+    }
+}
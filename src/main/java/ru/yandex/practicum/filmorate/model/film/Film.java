@@ -1,12 +1,20 @@
 package ru.yandex.practicum.filmorate.model.film;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Value;
 import ru.yandex.practicum.filmorate.service.validation.Marker;
 import ru.yandex.practicum.filmorate.service.validation.NotBeforeMovieDay;
 
 import javax.validation.constraints.*;
 import java.time.LocalDate;
 import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Класс описывает фильм, добавляемый в сервис.
@@ -19,6 +27,11 @@ public class Film {
      */
     public static final LocalDate FIRST_COMMERCIAL_MOVIE_DAY = LocalDate.parse("1895-12-28");
 
+    /**
+     * Год {@link #FIRST_COMMERCIAL_MOVIE_DAY}: фильмов, выпущенных раньше, нет.
+     */
+    public static final int FIRST_COMMERCIAL_MOVIE_YEAR = 1895;
+
     /**
      * Идентификатор фильма.
      */
@@ -65,33 +78,87 @@ public class Film {
     private int rate;
 
     /**
-     * Модель MPA
+     * Модель MPA. Экземпляры неизменяемые, поэтому один экземпляр разделяется всеми фильмами с этим рейтингом.
      */
-    @Data
+    @Value
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
     public static class MotionPictureAssociation {
+        /**
+         * Канонические экземпляры по id.
+         */
+        private static final Map<Integer, MotionPictureAssociation> CANONICAL = new ConcurrentHashMap<>();
+
         /**
          * id MPA
          */
         @NotNull
-        private int id;
+        int id;
         /**
          * Имя рейтинга.
          */
-        private String name;
+        String name;
+
+        /**
+         * Создание экземпляра рейтинга, например, из тела запроса клиента. Канонические экземпляры не затрагиваются.
+         */
+        @JsonCreator
+        public static MotionPictureAssociation of(@JsonProperty("id") int id, @JsonProperty("name") String name) {
+            return new MotionPictureAssociation(id, name);
+        }
+
+        /**
+         * Получение канонического экземпляра рейтинга для данных из БД. Для каждого id хранится канонический экземпляр:
+         * если его имя совпадает с заданным, возвращается он, иначе создается и запоминается новый.
+         */
+        public static MotionPictureAssociation canonical(int id, String name) {
+            MotionPictureAssociation mpa = CANONICAL.get(id);
+
+            if (mpa != null && Objects.equals(mpa.name, name)) return mpa;
+            mpa = new MotionPictureAssociation(id, name);
+            CANONICAL.put(id, mpa);
+            return mpa;
+        }
     }
 
     /**
-     * Модель жанра.
+     * Модель жанра. Экземпляры неизменяемые, поэтому один экземпляр разделяется всеми фильмами этого жанра.
      */
-    @Data
+    @Value
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
     public static class Genre {
+        /**
+         * Канонические экземпляры по id.
+         */
+        private static final Map<Integer, Genre> CANONICAL = new ConcurrentHashMap<>();
+
         /**
          * id жанра.
          */
-        private int id;
+        int id;
         /**
          * Название жанра.
          */
-        private String name;
+        String name;
+
+        /**
+         * Создание экземпляра жанра, например, из тела запроса клиента. Канонические экземпляры не затрагиваются.
+         */
+        @JsonCreator
+        public static Genre of(@JsonProperty("id") int id, @JsonProperty("name") String name) {
+            return new Genre(id, name);
+        }
+
+        /**
+         * Получение канонического экземпляра жанра для данных из БД. Для каждого id хранится канонический экземпляр:
+         * если его название совпадает с заданным, возвращается он, иначе создается и запоминается новый.
+         */
+        public static Genre canonical(int id, String name) {
+            Genre genre = CANONICAL.get(id);
+
+            if (genre != null && Objects.equals(genre.name, name)) return genre;
+            genre = new Genre(id, name);
+            CANONICAL.put(id, genre);
+            return genre;
+        }
     }
 }
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.model.film;
+
+import lombok.Value;
+
+/**
+ * Класс описывает подсказку при вводе названия фильма.
+ */
+@Value
+public class FilmSuggestion {
+    /**
+     * id фильма.
+     */
+    int id;
+    /**
+     * Название фильма.
+     */
+    String name;
+}
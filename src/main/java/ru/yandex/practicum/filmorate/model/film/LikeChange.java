@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.model.film;
+
+import lombok.Value;
+
+/**
+ * Класс описывает изменение лайка: пользователь ставит лайк фильму или снимает его.
+ */
+@Value
+public class LikeChange {
+    /**
+     * id фильма.
+     */
+    int filmId;
+    /**
+     * id пользователя.
+     */
+    int userId;
+    /**
+     * true - лайк ставится, false - лайк снимается.
+     */
+    boolean liked;
+}
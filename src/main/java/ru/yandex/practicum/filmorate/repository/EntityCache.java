@@ -0,0 +1,208 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.Value;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Ограниченный по размеру кэш сущностей по id с вытеснением давно не использованных записей (LRU) и временем жизни
+ * записей (TTL). Размер записи оценивается функцией веса, суммарный вес записей не превышает maxWeight.
+ * Кэш ведет статистику попаданий, промахов и вытеснений.
+ * <p>
+ * Чтобы значение, прочитанное из БД до изменения сущности, не попало в кэш после ее инвалидации, загрузка
+ * выполняется в два шага: {@link #getGeneration()} перед чтением из БД и {@link #put(int, Object, long)} после -
+ * значение не сохраняется, если между ними была инвалидация этой сущности (или всего кэша). Инвалидации других
+ * сущностей загрузку не отменяют: для каждой инвалидированной сущности хранится значение счетчика инвалидаций
+ * на момент ее инвалидации. Отметок хранится не больше {@value #MAX_INVALIDATIONS}, самые старые заменяются
+ * общей нижней границей - загрузки, начатые до нее, не сохраняются.
+ *
+ * @param <V> тип кэшируемых сущностей.
+ */
+public class EntityCache<V> {
+    static final int MAX_INVALIDATIONS = 4096;
+
+    /**
+     * Записи кэша в порядке доступа: первая запись - дольше всех не использовавшаяся.
+     */
+    private final LinkedHashMap<Integer, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToIntFunction<V> weigher;
+    private long weight;
+    /**
+     * Счетчик инвалидаций.
+     */
+    private long generation;
+    /**
+     * Значение счетчика при последней инвалидации сущности по id, в порядке инвалидаций: первая отметка - самая
+     * старая.
+     */
+    private final LinkedHashMap<Integer, Long> invalidations = new LinkedHashMap<>();
+    /**
+     * Значение счетчика при очистке кэша или при удалении самой старой отметки из invalidations: загрузки, начатые
+     * раньше, не сохраняются для любой сущности.
+     */
+    private long invalidatedAllAt;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxWeight максимальный суммарный вес записей.
+     * @param ttlMs     время жизни записи в миллисекундах.
+     * @param weigher   функция оценки веса (размера) сущности.
+     */
+    public EntityCache(long maxWeight, long ttlMs, ToIntFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttlMs * 1_000_000;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Получение сущности из кэша.
+     *
+     * @param id id сущности.
+     * @return сущность или null, если ее нет в кэше или время жизни записи истекло.
+     */
+    public synchronized V get(int id) {
+        Entry<V> entry = getEntry(id);
+
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Проверка наличия сущности в кэше без учета в статистике попаданий и промахов: проверки существования
+     * не должны искажать долю попаданий чтений. Как и чтение, продлевает запись в порядке вытеснения.
+     *
+     * @param id id сущности.
+     * @return true, если сущность есть в кэше и время жизни записи не истекло.
+     */
+    public synchronized boolean containsKey(int id) {
+        return getEntry(id) != null;
+    }
+
+    /**
+     * @return текущее значение счетчика инвалидаций - запрашивается перед чтением сущности из БД.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Сохранение сущности в кэше, если с момента получения generation не было инвалидаций этой сущности.
+     *
+     * @param id         id сущности.
+     * @param value      сущность.
+     * @param generation значение счетчика инвалидаций до чтения сущности из БД.
+     */
+    public synchronized void put(int id, V value, long generation) {
+        if (generation < invalidatedAllAt) return;
+
+        Long invalidatedAt = invalidations.get(id);
+
+        if (invalidatedAt != null && generation < invalidatedAt) return;
+
+        int valueWeight = weigher.applyAsInt(value);
+
+        if (valueWeight > maxWeight) return;
+        remove(id);
+        entries.put(id, new Entry<>(value, valueWeight, System.nanoTime()));
+        weight += valueWeight;
+
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+
+        while (weight > maxWeight) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Удаление сущности из кэша после ее изменения.
+     *
+     * @param id id сущности.
+     */
+    public synchronized void invalidate(int id) {
+        generation++;
+        invalidations.remove(id);
+        invalidations.put(id, generation);
+        if (invalidations.size() > MAX_INVALIDATIONS) {
+            Iterator<Long> eldest = invalidations.values().iterator();
+
+            invalidatedAllAt = eldest.next();
+            eldest.remove();
+        }
+        remove(id);
+    }
+
+    /**
+     * Очистка кэша.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidatedAllAt = generation;
+        invalidations.clear();
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), weight, hits, misses, evictions);
+    }
+
+    /**
+     * @return запись кэша или null, если ее нет или время жизни записи истекло (такая запись удаляется).
+     */
+    private Entry<V> getEntry(int id) {
+        Entry<V> entry = entries.get(id);
+
+        if (entry != null && System.nanoTime() - entry.createdAt > ttlNanos) {
+            remove(id);
+            return null;
+        }
+        return entry;
+    }
+
+    private void remove(int id) {
+        Entry<V> removed = entries.remove(id);
+
+        if (removed != null) weight -= removed.weight;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final int weight;
+        private final long createdAt;
+
+        private Entry(V value, int weight, long createdAt) {
+            this.value = value;
+            this.weight = weight;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * Статистика кэша.
+     */
+    @Value
+    public static class Stats {
+        int size;
+        long weight;
+        long hits;
+        long misses;
+        long evictions;
+
+        public double getHitRate() {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+    }
+}
@@ -2,29 +2,49 @@ package ru.yandex.practicum.filmorate.repository;
 
 import org.springframework.lang.Nullable;
 import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 /**
  * Интерфейс, описывающий репозиторий фильмов.
  */
 public interface FilmRepository extends ModelRepository<Film> {
     /**
-     * Добавление лайка фильму.
+     * Создание нескольких фильмов за одну операцию. Каждому фильму устанавливается id в порядке следования в списке.
+     *
+     * @param films создаваемые фильмы.
+     */
+    void createAll(List<Film> films);
+
+    /**
+     * Добавление лайка фильму. Повторное добавление того же лайка ничего не меняет.
      *
      * @param filmId фильм, которому добавляется лайк.
      * @param userId пользователь, который добавляет лайк.
+     * @return true, если лайка не было и он добавлен.
      */
-    void addLike(int filmId, int userId);
+    boolean addLike(int filmId, int userId);
 
     /**
-     * Удаление лайка у фильма пользователем.
+     * Удаление лайка у фильма пользователем. Удаление отсутствующего лайка ничего не меняет.
      *
      * @param filmId фильм, у которого удаляется лайк.
      * @param userId пользователь, который удаляет лайк.
+     * @return true, если лайк был и он удален.
+     */
+    boolean deleteLike(int filmId, int userId);
+
+    /**
+     * Пакетное применение изменений лайков. Изменения должны относиться к разным парам фильм-пользователь.
+     *
+     * @param changes применяемые изменения.
+     * @return для каждого изменения (в том же порядке) true, если состояние лайка изменилось.
      */
-    void deleteLike(int filmId, int userId);
+    boolean[] applyLikes(List<LikeChange> changes);
 
     /**
      * Получение списка популярных фильмов. Популярность фильма определяет число лайков.
@@ -34,6 +54,47 @@ public interface FilmRepository extends ModelRepository<Film> {
      */
     List<Film> getPopularsFilms(int count);
 
+    /**
+     * Получение списка популярных фильмов среди фильмов, подходящих под фильтры.
+     * Фильтр, равный null, не применяется.
+     *
+     * @param count   сколько наиболее популярных фильмов необходимо вернуть.
+     * @param genreId id жанра, который должен быть у фильма.
+     * @param mpaId   id MPA фильма.
+     * @param year    год выпуска фильма.
+     * @return список популярных фильмов по убыванию числа лайков, при равенстве - по возрастанию id.
+     */
+    List<Film> getPopularsFilms(int count, @Nullable Integer genreId, @Nullable Integer mpaId, @Nullable Integer year);
+
+    /**
+     * Получение фильмов по списку id.
+     *
+     * @param ids id требуемых фильмов.
+     * @return фильмы в порядке следования id в списке. Фильмы, которых нет в репозитории, пропускаются.
+     */
+    List<Film> getByIds(List<Integer> ids);
+
+    /**
+     * Обход всех лайков, упорядоченных по id пользователя, а затем по id фильма.
+     *
+     * @param action действие, которое получает id пользователя и id фильма, которому он поставил лайк.
+     */
+    void forEachLike(BiConsumer<Integer, Integer> action);
+
+    /**
+     * Получение числа лайков каждого фильма по фактическим лайкам.
+     *
+     * @return таблица: ключ - id фильма, значение - число лайков (в том числе 0 у фильмов без лайков).
+     */
+    Map<Integer, Integer> getLikesCounts();
+
+    /**
+     * Сверка денормализованных счетчиков лайков фильмов с фактическими лайками и исправление расхождений.
+     *
+     * @return число фильмов, у которых счетчик лайков был исправлен.
+     */
+    int recountLikes();
+
     /**
      * Получение списка доступных жанров, которые могут быть у фильма.
      *
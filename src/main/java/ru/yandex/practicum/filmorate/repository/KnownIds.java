@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Потокобезопасное множество id сущностей, существование которых уже подтверждено, в виде битовой карты
+ * (один бит на id). Позволяет проверять существование сущности без обращения к БД.
+ * Отсутствие id в множестве не означает отсутствия сущности - в этом случае репозиторий обращается к БД.
+ */
+public class KnownIds {
+    private final BitSet ids = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(int id) {
+        lock.writeLock().lock();
+        try {
+            ids.set(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавление id после фиксации текущей транзакции: сущность, созданная в откаченной транзакции,
+     * не должна считаться существующей.
+     */
+    public void addAfterCommit(int id) {
+        TransactionCallbacks.afterCommit(() -> add(id));
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            ids.clear(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ids.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(int id) {
+        if (id < 0) return false;
+        lock.readLock().lock();
+        try {
+            return ids.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import org.springframework.lang.Nullable;
+
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 
 /**
@@ -42,6 +45,14 @@ public interface ModelRepository<T> {
      */
     Optional<T> get(Integer id);
 
+    /**
+     * Проверка существования сущности. В отличие от {@link #get(Integer)} не загружает сущность.
+     *
+     * @param id id сущности.
+     * @return true, если сущность с таким id существует.
+     */
+    boolean exists(Integer id);
+
     /**
      * Получение всех созданных сущностей.
      *
@@ -49,6 +60,23 @@ public interface ModelRepository<T> {
      */
     List<T> getAll();
 
+    /**
+     * Получение страницы сущностей, упорядоченных по id (keyset pagination).
+     *
+     * @param after id, после которого начинается страница, или null для первой страницы.
+     * @param limit максимальное число сущностей на странице.
+     * @return сущности с id больше after в порядке возрастания id.
+     */
+    List<T> getPage(@Nullable Integer after, int limit);
+
+    /**
+     * Последовательная обработка всех сущностей без загрузки их в память целиком. Каждая сущность передается
+     * обработчику сразу после чтения, поэтому расход памяти не зависит от числа сущностей.
+     *
+     * @param action обработчик сущностей.
+     */
+    void forEach(Consumer<? super T> action);
+
     /**
      * Удаление всех хранимых сущностей.
      */
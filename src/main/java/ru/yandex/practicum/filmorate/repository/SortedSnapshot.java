@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToIntFunction;
+
+/**
+ * Неизменяемый снимок сущностей, упорядоченных по возрастанию id, с заменой по принципу copy-on-write.
+ * Каждое изменение строит новый снимок и публикует его атомарной операцией compare-and-set, поэтому чтение
+ * (полный список или страница) не блокируется и не ждет писателей, а конкурирующие изменения не теряются.
+ * Изменение стоит O(n), поэтому снимок подходит для редко изменяемых и часто читаемых данных.
+ *
+ * @param <V> тип сущностей.
+ */
+public class SortedSnapshot<V> {
+    private final ToIntFunction<V> idOf;
+    private final AtomicReference<State<V>> state = new AtomicReference<>(new State<>(new int[0], new Object[0]));
+
+    /**
+     * @param idOf функция получения id сущности.
+     */
+    public SortedSnapshot(ToIntFunction<V> idOf) {
+        this.idOf = idOf;
+    }
+
+    /**
+     * @return все сущности по возрастанию id. Список неизменяемый.
+     */
+    public List<V> getAll() {
+        return state.get().view;
+    }
+
+    /**
+     * Поиск сущности по id двоичным поиском.
+     *
+     * @return сущность или null, если ее нет.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int id) {
+        State<V> current = state.get();
+        int index = Arrays.binarySearch(current.ids, id);
+
+        return index >= 0 ? (V) current.items[index] : null;
+    }
+
+    public boolean contains(int id) {
+        return Arrays.binarySearch(state.get().ids, id) >= 0;
+    }
+
+    /**
+     * @return id всех сущностей по возрастанию.
+     */
+    public int[] getIds() {
+        return state.get().ids.clone();
+    }
+
+    /**
+     * Получение страницы сущностей.
+     *
+     * @param after id, после которого начинается страница, или null для первой страницы.
+     * @param limit максимальное число сущностей.
+     * @return сущности с id больше after по возрастанию id.
+     */
+    public List<V> getPage(Integer after, int limit) {
+        State<V> current = state.get();
+        int from = after == null ? 0 : upperBound(current.ids, after);
+        int to = (int) Math.min(current.ids.length, (long) from + limit);
+
+        return current.view.subList(from, Math.max(from, to));
+    }
+
+    /**
+     * Добавление сущностей или замена сущностей с теми же id. Новые сущности упорядочиваются и сливаются
+     * со снимком за один проход, поэтому пакетное добавление стоит O(n + k log k).
+     */
+    public void putAll(List<V> entities) {
+        if (entities.isEmpty()) return;
+
+        Object[] added = entities.toArray();
+        int[] addedIds = new int[added.length];
+        Integer[] order = new Integer[added.length];
+
+        for (int i = 0; i < added.length; i++) {
+            addedIds[i] = idOf.applyAsInt(entities.get(i));
+            order[i] = i;
+        }
+        Arrays.sort(order, (first, second) -> Integer.compare(addedIds[first], addedIds[second]));
+        state.updateAndGet(current -> merge(current, added, addedIds, order));
+    }
+
+    public void put(V entity) {
+        putAll(List.of(entity));
+    }
+
+    public void remove(int id) {
+        state.updateAndGet(current -> {
+            int index = Arrays.binarySearch(current.ids, id);
+
+            if (index < 0) return current;
+
+            int[] ids = new int[current.ids.length - 1];
+            Object[] items = new Object[current.items.length - 1];
+
+            System.arraycopy(current.ids, 0, ids, 0, index);
+            System.arraycopy(current.items, 0, items, 0, index);
+            System.arraycopy(current.ids, index + 1, ids, index, ids.length - index);
+            System.arraycopy(current.items, index + 1, items, index, items.length - index);
+            return new State<>(ids, items);
+        });
+    }
+
+    public void clear() {
+        state.set(new State<>(new int[0], new Object[0]));
+    }
+
+    /**
+     * Слияние снимка с новыми сущностями, упорядоченными через order. При совпадении id побеждает новая сущность,
+     * а среди новых - последняя в исходном списке (сортировка устойчива).
+     */
+    private static <V> State<V> merge(State<V> current, Object[] added, int[] addedIds, Integer[] order) {
+        int[] ids = new int[current.ids.length + added.length];
+        Object[] items = new Object[ids.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < current.ids.length || j < order.length) {
+            boolean takeAdded = i == current.ids.length
+                    || j < order.length && addedIds[order[j]] <= current.ids[i];
+            int id = takeAdded ? addedIds[order[j]] : current.ids[i];
+            Object item = takeAdded ? added[order[j++]] : current.items[i];
+
+            if (takeAdded && i < current.ids.length && current.ids[i] == id) i++;
+            if (!takeAdded) i++;
+            if (size > 0 && ids[size - 1] == id) {
+                items[size - 1] = item;
+            } else {
+                ids[size] = id;
+                items[size++] = item;
+            }
+        }
+        return new State<>(size == ids.length ? ids : Arrays.copyOf(ids, size),
+                size == items.length ? items : Arrays.copyOf(items, size));
+    }
+
+    /**
+     * Позиция первого id, большего заданного.
+     */
+    private static int upperBound(int[] ids, int id) {
+        int index = Arrays.binarySearch(ids, id);
+
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Снимок: id и сущности в одном порядке. Массивы после создания снимка не изменяются.
+     */
+    private static class State<V> {
+        private final int[] ids;
+        private final Object[] items;
+        private final List<V> view;
+
+        @SuppressWarnings("unchecked")
+        private State(int[] ids, Object[] items) {
+            this.ids = ids;
+            this.items = items;
+            this.view = Collections.unmodifiableList((List<V>) Arrays.asList(items));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Действия над состоянием репозиториев в памяти, которые должны выполняться только после фиксации транзакции,
+ * чтобы откат транзакции не оставлял в памяти изменений, которых нет в БД.
+ */
+public final class TransactionCallbacks {
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * Выполнение действия после фиксации текущей транзакции. При откате транзакции действие не выполняется.
+     * Вне транзакции (каждый запрос фиксируется сразу) действие выполняется немедленно.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import org.springframework.lang.Nullable;
 import ru.yandex.practicum.filmorate.model.user.User;
 
 import java.util.List;
@@ -32,6 +33,16 @@ public interface UserRepository extends ModelRepository<User> {
      */
     List<User> getFriends(Integer id);
 
+    /**
+     * Получение страницы друзей пользователя, упорядоченных по id.
+     *
+     * @param id    пользователь, список друзей которого запрашивается.
+     * @param after id друга, после которого начинается страница, или null для первой страницы.
+     * @param limit максимальное число друзей на странице.
+     * @return страница друзей.
+     */
+    List<User> getFriends(Integer id, @Nullable Integer after, int limit);
+
     /**
      * Получение списка подтвержденных друзей.
      *
@@ -39,4 +50,41 @@ public interface UserRepository extends ModelRepository<User> {
      * @return список подтвержденных друзей.
      */
     List<User> getConfirmFriends(Integer id);
+
+    /**
+     * Получение страницы подтвержденных друзей, упорядоченных по id.
+     *
+     * @param id    пользователь, список друзей которого запрашивается.
+     * @param after id друга, после которого начинается страница, или null для первой страницы.
+     * @param limit максимальное число друзей на странице.
+     * @return страница подтвержденных друзей.
+     */
+    List<User> getConfirmFriends(Integer id, @Nullable Integer after, int limit);
+
+    /**
+     * Получение общих друзей двух пользователей.
+     *
+     * @param id      первый пользователь.
+     * @param otherId второй пользователь.
+     * @return пользователи, которые есть в списках друзей обоих пользователей, упорядоченные по id.
+     */
+    List<User> getCommonFriends(Integer id, Integer otherId);
+
+    /**
+     * Рекомендация друзей: друзья друзей пользователя, упорядоченные по убыванию числа общих друзей
+     * (при равенстве - по возрастанию id). Исключаются друзья пользователя и пользователи, отправившие ему заявку.
+     *
+     * @param id    пользователь, для которого подбираются рекомендации.
+     * @param limit максимальное число рекомендаций.
+     * @return рекомендуемые пользователи.
+     */
+    List<User> getFriendRecommendations(Integer id, int limit);
+
+    /**
+     * Получение пользователей по списку id.
+     *
+     * @param ids id требуемых пользователей.
+     * @return пользователи в порядке следования id в списке. Пользователи, которых нет в репозитории, пропускаются.
+     */
+    List<User> getByIds(List<Integer> ids);
 }
@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.repository.collection;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.IntConsumer;
+
+/**
+ * Потокобезопасное множество значений int без блокировок: значения хранятся в упорядоченном массиве int,
+ * который при каждом изменении заменяется новым массивом атомарной операцией compare-and-set.
+ * Чтение не блокируется и не ждет писателей, конкурирующие изменения повторяются до успешной замены и не теряются.
+ * Элемент занимает 4 байта без упаковки и без свободных ячеек. Изменение стоит O(n), поэтому множество подходит
+ * для данных, которые читаются чаще, чем меняются.
+ */
+public class CopyOnWriteIntSet {
+    private static final int[] EMPTY = new int[0];
+    private static final AtomicReferenceFieldUpdater<CopyOnWriteIntSet, int[]> VALUES =
+            AtomicReferenceFieldUpdater.newUpdater(CopyOnWriteIntSet.class, int[].class, "values");
+
+    private volatile int[] values = EMPTY;
+
+    /**
+     * @return true, если значения не было в множестве.
+     */
+    public boolean add(int value) {
+        while (true) {
+            int[] current = values;
+            int index = Arrays.binarySearch(current, value);
+
+            if (index >= 0) return false;
+
+            int insertAt = -index - 1;
+            int[] updated = new int[current.length + 1];
+
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = value;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+            if (VALUES.compareAndSet(this, current, updated)) return true;
+        }
+    }
+
+    /**
+     * @return true, если значение было в множестве.
+     */
+    public boolean remove(int value) {
+        while (true) {
+            int[] current = values;
+            int index = Arrays.binarySearch(current, value);
+
+            if (index < 0) return false;
+
+            int[] updated = current.length == 1 ? EMPTY : new int[current.length - 1];
+
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+            if (VALUES.compareAndSet(this, current, updated)) return true;
+        }
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    /**
+     * Обход значений по возрастанию. Обходится снимок множества на момент вызова.
+     */
+    public void forEach(IntConsumer action) {
+        for (int value : values) {
+            action.accept(value);
+        }
+    }
+
+    /**
+     * @return значения по возрастанию (копия).
+     */
+    public int[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
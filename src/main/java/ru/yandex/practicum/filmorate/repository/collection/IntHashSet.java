@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.repository.collection;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Множество значений int на хеш-таблице с открытой адресацией и линейным пробированием.
+ * Значения хранятся прямо в массиве int без упаковки в Integer и без объектов-узлов, поэтому элемент занимает
+ * 4 байта на ячейку таблицы (от 5,3 до 16 байт на элемент в зависимости от заполнения) вместо ~50 байт
+ * у {@link java.util.HashSet} с Integer.
+ * Свободная ячейка обозначается нулем, наличие в множестве самого нуля хранится отдельным флагом.
+ * При удалении следующие элементы цепочки сдвигаются назад, поэтому удаленные ячейки не накапливаются.
+ * Класс не потокобезопасен.
+ */
+public class IntHashSet {
+    private static final int MIN_CAPACITY = 4;
+    private static final int[] EMPTY_KEYS = new int[0];
+
+    private int[] keys = EMPTY_KEYS;
+    private boolean hasZero;
+    private int size;
+
+    public IntHashSet() {
+    }
+
+    /**
+     * @param expectedSize ожидаемое число элементов, таблица сразу создается достаточного размера.
+     */
+    public IntHashSet(int expectedSize) {
+        if (expectedSize > 0) keys = new int[IntHashing.capacityFor(expectedSize, MIN_CAPACITY)];
+    }
+
+    /**
+     * @return true, если значения не было в множестве.
+     */
+    public boolean add(int key) {
+        if (key == 0) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        if (IntHashing.needsResize(size - (hasZero ? 1 : 0) + 1, keys.length)) {
+            resize(IntHashing.grow(keys.length, MIN_CAPACITY));
+        }
+
+        int mask = keys.length - 1;
+
+        for (int slot = IntHashing.hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return false;
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return true, если значение было в множестве.
+     */
+    public boolean remove(int key) {
+        if (key == 0) {
+            if (!hasZero) return false;
+            hasZero = false;
+            size--;
+            return true;
+        }
+
+        int slot = find(key);
+
+        if (slot < 0) return false;
+        IntHashing.shiftBack(keys, null, slot);
+        size--;
+        return true;
+    }
+
+    public boolean contains(int key) {
+        return key == 0 ? hasZero : find(key) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        if (hasZero) action.accept(0);
+        for (int key : keys) {
+            if (key != 0) action.accept(key);
+        }
+    }
+
+    /**
+     * @return значения множества в произвольном порядке.
+     */
+    public int[] toArray() {
+        int[] values = new int[size];
+        int index = 0;
+
+        if (hasZero) values[index++] = 0;
+        for (int key : keys) {
+            if (key != 0) values[index++] = key;
+        }
+        return values;
+    }
+
+    private int find(int key) {
+        if (keys.length == 0) return -1;
+
+        int mask = keys.length - 1;
+
+        for (int slot = IntHashing.hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return slot;
+            if (keys[slot] == 0) return -1;
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int mask = capacity - 1;
+
+        keys = new int[capacity];
+        for (int key : oldKeys) {
+            if (key == 0) continue;
+
+            int slot = IntHashing.hash(key) & mask;
+
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+        }
+    }
+
+    @Override
+    public String toString() {
+        int[] values = toArray();
+
+        Arrays.sort(values);
+        return Arrays.toString(values);
+    }
+}
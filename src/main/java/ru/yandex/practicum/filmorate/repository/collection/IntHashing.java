@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.repository.collection;
+
+/**
+ * Общие операции хеш-таблиц с ключами int и открытой адресацией: размер таблицы - степень двойки,
+ * заполнение - не больше 3/4, свободная ячейка - ключ 0.
+ */
+final class IntHashing {
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private IntHashing() {
+    }
+
+    /**
+     * Перемешивание битов ключа, чтобы последовательные id не образовывали длинных цепочек.
+     */
+    static int hash(int key) {
+        int hash = key * 0x9E3779B9;
+
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @return true, если таблица размера capacity не вместит size ненулевых ключей.
+     */
+    static boolean needsResize(int size, int capacity) {
+        return (long) size * 4 > (long) capacity * 3;
+    }
+
+    static int grow(int capacity, int minCapacity) {
+        if (capacity >= MAX_CAPACITY) throw new IllegalStateException("Превышен максимальный размер хеш-таблицы");
+        return Math.max(minCapacity, capacity * 2);
+    }
+
+    static int capacityFor(int expectedSize, int minCapacity) {
+        int capacity = minCapacity;
+
+        while (needsResize(expectedSize, capacity)) {
+            capacity = grow(capacity, minCapacity);
+        }
+        return capacity;
+    }
+
+    /**
+     * Освобождение ячейки со сдвигом назад следующих ключей цепочки (backward shift deletion): ключ переносится
+     * в освобожденную ячейку, если она лежит между его исходной ячейкой и текущей.
+     *
+     * @param keys   ключи таблицы.
+     * @param values значения таблицы, сдвигаются вместе с ключами, или null для множества.
+     * @param slot   освобождаемая ячейка.
+     */
+    static void shiftBack(int[] keys, Object[] values, int slot) {
+        int mask = keys.length - 1;
+        int free = slot;
+
+        for (int current = (free + 1) & mask; keys[current] != 0; current = (current + 1) & mask) {
+            int home = hash(keys[current]) & mask;
+
+            if (((current - home) & mask) >= ((current - free) & mask)) {
+                keys[free] = keys[current];
+                if (values != null) values[free] = values[current];
+                free = current;
+            }
+        }
+        keys[free] = 0;
+        if (values != null) values[free] = null;
+    }
+}
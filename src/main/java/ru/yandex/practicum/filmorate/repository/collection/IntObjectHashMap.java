@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.repository.collection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Хеш-таблица с ключами int и открытой адресацией (линейное пробирование). Ключи и значения хранятся
+ * в параллельных массивах без упаковки ключей в Integer и без объектов-узлов.
+ * Свободная ячейка обозначается ключом 0, значение для ключа 0 хранится отдельно. Значения null не допускаются.
+ * Класс не потокобезопасен.
+ *
+ * @param <V> тип значений.
+ */
+public class IntObjectHashMap<V> {
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] keys = new int[MIN_CAPACITY];
+    private Object[] values = new Object[MIN_CAPACITY];
+    private V zeroValue;
+    private int size;
+
+    /**
+     * @return значение или null, если ключа нет.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == 0) return zeroValue;
+
+        int slot = find(key);
+
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return предыдущее значение или null, если ключа не было.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) throw new IllegalArgumentException("Значение не может быть null");
+        if (key == 0) {
+            V previous = zeroValue;
+
+            if (previous == null) size++;
+            zeroValue = value;
+            return previous;
+        }
+        if (IntHashing.needsResize(size - (zeroValue != null ? 1 : 0) + 1, keys.length)) {
+            resize(IntHashing.grow(keys.length, MIN_CAPACITY));
+        }
+
+        int mask = keys.length - 1;
+
+        for (int slot = IntHashing.hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+
+                values[slot] = value;
+                return previous;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                values[slot] = value;
+                size++;
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return удаленное значение или null, если ключа не было.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        if (key == 0) {
+            V previous = zeroValue;
+
+            if (previous != null) size--;
+            zeroValue = null;
+            return previous;
+        }
+
+        int slot = find(key);
+
+        if (slot < 0) return null;
+
+        V previous = (V) values[slot];
+
+        IntHashing.shiftBack(keys, values, slot);
+        size--;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        keys = new int[MIN_CAPACITY];
+        values = new Object[MIN_CAPACITY];
+        zeroValue = null;
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super V> action) {
+        if (zeroValue != null) action.accept(0, zeroValue);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) action.accept(keys[slot], (V) values[slot]);
+        }
+    }
+
+    /**
+     * @return значения в произвольном порядке.
+     */
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+
+        forEach((key, value) -> result.add(value));
+        return result;
+    }
+
+    private int find(int key) {
+        int mask = keys.length - 1;
+
+        for (int slot = IntHashing.hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return slot;
+            if (keys[slot] == 0) return -1;
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int mask = capacity - 1;
+
+        keys = new int[capacity];
+        values = new Object[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+
+            int slot = IntHashing.hash(oldKeys[i]) & mask;
+
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Действие над парой ключ - значение без упаковки ключа.
+     */
+    @FunctionalInterface
+    public interface Consumer<V> {
+        void accept(int key, V value);
+    }
+}
@@ -0,0 +1,341 @@
+package ru.yandex.practicum.filmorate.repository.collection;
+
+import java.util.Arrays;
+
+/**
+ * Сжатое множество неотрицательных значений int по схеме Roaring.
+ * Значения делятся на блоки по старшим 16 битам, младшие 16 бит хранятся в контейнере блока:
+ * <ul>
+ *     <li>разреженный блок (до {@link #ARRAY_MAX_SIZE} значений) - упорядоченный массив char,
+ *     2 байта на значение;</li>
+ *     <li>плотный блок - битовая карта из 1024 long (8 КБ), 1 бит на каждое из 65536 возможных значений.</li>
+ * </ul>
+ * Пересечение битовых карт вычисляется по словам: одно AND и {@link Long#bitCount(long)} обрабатывают
+ * 64 значения; массивы пересекаются слиянием, массив с картой - проверкой битов.
+ * Класс не потокобезопасен.
+ */
+public class RoaringBitmap {
+    /**
+     * Максимальное число значений в разреженном блоке. При большем числе блок становится битовой картой:
+     * 4096 значений по 2 байта занимают столько же, сколько карта.
+     */
+    private static final int ARRAY_MAX_SIZE = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    /**
+     * Старшие 16 бит блоков по возрастанию.
+     */
+    private char[] keys = new char[0];
+    /**
+     * Контейнеры блоков, containers[i] соответствует keys[i]. Элемент - char[] (разреженный блок,
+     * первые cardinalities[i] элементов) или long[] (битовая карта).
+     */
+    private Object[] containers = new Object[0];
+    private int[] cardinalities = new int[0];
+    private int blocks;
+
+    /**
+     * @return true, если значения не было в множестве.
+     * @throws IllegalArgumentException если значение отрицательное.
+     */
+    public boolean add(int value) {
+        if (value < 0) throw new IllegalArgumentException("Значение не может быть отрицательным: " + value);
+
+        char key = (char) (value >>> 16);
+        char low = (char) value;
+        int block = Arrays.binarySearch(keys, 0, blocks, key);
+
+        if (block < 0) {
+            block = insertBlock(-block - 1, key);
+        }
+
+        Object container = containers[block];
+
+        if (container instanceof long[]) {
+            long[] words = (long[]) container;
+            long mask = 1L << low;
+
+            if ((words[low >>> 6] & mask) != 0) return false;
+            words[low >>> 6] |= mask;
+            cardinalities[block]++;
+            return true;
+        }
+
+        char[] values = (char[]) container;
+        int size = cardinalities[block];
+        int position = Arrays.binarySearch(values, 0, size, low);
+
+        if (position >= 0) return false;
+        position = -position - 1;
+        if (size == ARRAY_MAX_SIZE) {
+            long[] words = toBitmap(values, size);
+
+            words[low >>> 6] |= 1L << low;
+            containers[block] = words;
+        } else {
+            if (size == values.length) values = Arrays.copyOf(values, Math.min(ARRAY_MAX_SIZE, size * 2));
+            System.arraycopy(values, position, values, position + 1, size - position);
+            values[position] = low;
+            containers[block] = values;
+        }
+        cardinalities[block]++;
+        return true;
+    }
+
+    /**
+     * @return true, если значение было в множестве.
+     */
+    public boolean remove(int value) {
+        if (value < 0) return false;
+
+        int block = Arrays.binarySearch(keys, 0, blocks, (char) (value >>> 16));
+
+        if (block < 0) return false;
+
+        char low = (char) value;
+        Object container = containers[block];
+
+        if (container instanceof long[]) {
+            long[] words = (long[]) container;
+            long mask = 1L << low;
+
+            if ((words[low >>> 6] & mask) == 0) return false;
+            words[low >>> 6] &= ~mask;
+            /*
+             карта возвращается в массив только при вдвое меньшем заполнении, чтобы значения на границе
+             не вызывали преобразований при каждом добавлении и удалении
+             */
+            cardinalities[block]--;
+            if (cardinalities[block] <= ARRAY_MAX_SIZE / 2) containers[block] = toArray(words, cardinalities[block]);
+        } else {
+            char[] values = (char[]) container;
+            int size = cardinalities[block];
+            int position = Arrays.binarySearch(values, 0, size, low);
+
+            if (position < 0) return false;
+            System.arraycopy(values, position + 1, values, position, size - position - 1);
+            cardinalities[block]--;
+        }
+        if (cardinalities[block] == 0) removeBlock(block);
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) return false;
+
+        int block = Arrays.binarySearch(keys, 0, blocks, (char) (value >>> 16));
+
+        if (block < 0) return false;
+
+        char low = (char) value;
+        Object container = containers[block];
+
+        if (container instanceof long[]) return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+        return Arrays.binarySearch((char[]) container, 0, cardinalities[block], low) >= 0;
+    }
+
+    /**
+     * @return число значений в множестве.
+     */
+    public int getCardinality() {
+        int cardinality = 0;
+
+        for (int i = 0; i < blocks; i++) {
+            cardinality += cardinalities[i];
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return blocks == 0;
+    }
+
+    /**
+     * @return значения, которые есть в обоих множествах, по возрастанию.
+     */
+    public int[] and(RoaringBitmap other) {
+        int[] result = new int[Math.min(getCardinality(), other.getCardinality())];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < blocks && j < other.blocks) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                size = andBlock(containers[i], cardinalities[i], other.containers[j], other.cardinalities[j],
+                        keys[i] << 16, result, size);
+                i++;
+                j++;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * @return число значений, которые есть в обоих множествах. Пересечение не строится.
+     */
+    public int andCardinality(RoaringBitmap other) {
+        int cardinality = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < blocks && j < other.blocks) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                cardinality += andBlockCardinality(containers[i], cardinalities[i],
+                        other.containers[j], other.cardinalities[j]);
+                i++;
+                j++;
+            }
+        }
+        return cardinality;
+    }
+
+    /**
+     * @return значения множества по возрастанию.
+     */
+    public int[] toArray() {
+        int[] result = new int[getCardinality()];
+        int size = 0;
+
+        for (int block = 0; block < blocks; block++) {
+            int high = keys[block] << 16;
+            Object container = containers[block];
+
+            if (container instanceof long[]) {
+                size = appendBits((long[]) container, null, high, result, size);
+            } else {
+                char[] values = (char[]) container;
+
+                for (int k = 0; k < cardinalities[block]; k++) {
+                    result[size++] = high | values[k];
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int andBlock(Object first, int firstSize, Object second, int secondSize,
+                                int high, int[] result, int size) {
+        if (first instanceof long[] && second instanceof long[]) {
+            return appendBits((long[]) first, (long[]) second, high, result, size);
+        }
+        if (first instanceof long[]) return andBlock(second, secondSize, first, firstSize, high, result, size);
+        if (second instanceof long[]) {
+            char[] values = (char[]) first;
+            long[] words = (long[]) second;
+
+            for (int k = 0; k < firstSize; k++) {
+                if ((words[values[k] >>> 6] & (1L << values[k])) != 0) result[size++] = high | values[k];
+            }
+            return size;
+        }
+
+        char[] values = (char[]) first;
+        char[] otherValues = (char[]) second;
+        int i = 0;
+        int j = 0;
+
+        while (i < firstSize && j < secondSize) {
+            if (values[i] < otherValues[j]) {
+                i++;
+            } else if (values[i] > otherValues[j]) {
+                j++;
+            } else {
+                result[size++] = high | values[i];
+                i++;
+                j++;
+            }
+        }
+        return size;
+    }
+
+    private static int andBlockCardinality(Object first, int firstSize, Object second, int secondSize) {
+        if (first instanceof long[] && second instanceof long[]) {
+            long[] words = (long[]) first;
+            long[] otherWords = (long[]) second;
+            int cardinality = 0;
+
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                cardinality += Long.bitCount(words[w] & otherWords[w]);
+            }
+            return cardinality;
+        }
+        if (first instanceof long[]) return andBlockCardinality(second, secondSize, first, firstSize);
+
+        int[] buffer = new int[Math.min(firstSize, secondSize)];
+
+        return andBlock(first, firstSize, second, secondSize, 0, buffer, 0);
+    }
+
+    /**
+     * Добавление в result значений, биты которых установлены в words (и в otherWords, если он задан).
+     */
+    private static int appendBits(long[] words, long[] otherWords, int high, int[] result, int size) {
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = otherWords == null ? words[w] : words[w] & otherWords[w];
+
+            while (word != 0) {
+                result[size++] = high | (w << 6) | Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return size;
+    }
+
+    private static long[] toBitmap(char[] values, int size) {
+        long[] words = new long[BITMAP_WORDS];
+
+        for (int k = 0; k < size; k++) {
+            words[values[k] >>> 6] |= 1L << values[k];
+        }
+        return words;
+    }
+
+    private static char[] toArray(long[] words, int cardinality) {
+        char[] values = new char[cardinality];
+        int size = 0;
+
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = words[w];
+
+            while (word != 0) {
+                values[size++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+
+    private int insertBlock(int position, char key) {
+        if (blocks == keys.length) {
+            int capacity = Math.max(4, blocks * 2);
+
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        System.arraycopy(keys, position, keys, position + 1, blocks - position);
+        System.arraycopy(containers, position, containers, position + 1, blocks - position);
+        System.arraycopy(cardinalities, position, cardinalities, position + 1, blocks - position);
+        keys[position] = key;
+        containers[position] = new char[4];
+        cardinalities[position] = 0;
+        blocks++;
+        return position;
+    }
+
+    private void removeBlock(int block) {
+        System.arraycopy(keys, block + 1, keys, block, blocks - block - 1);
+        System.arraycopy(containers, block + 1, containers, block, blocks - block - 1);
+        System.arraycopy(cardinalities, block + 1, cardinalities, block, blocks - block - 1);
+        blocks--;
+        containers[blocks] = null;
+    }
+}
@@ -0,0 +1,262 @@
+package ru.yandex.practicum.filmorate.repository.film.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
+import ru.yandex.practicum.filmorate.repository.EntityCache;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Репозиторий фильмов, кэширующий фильмы, запрошенные по id, поверх репозитория в БД (read-through).
+ * Фильм удаляется из кэша при обновлении и удалении. Лайки в фильм не входят (счетчик лайков хранится только в БД
+ * для выборки популярных), поэтому изменение лайков кэш не затрагивает.
+ * В кэше хранятся копии фильмов и наружу отдаются копии, поэтому изменение полученного объекта не меняет кэш.
+ * Кэш включается настройкой filmorate.cache.enabled, при выключенном кэше все вызовы передаются репозиторию в БД.
+ */
+@Repository("CachingFilmsRepository")
+@Slf4j
+public class CachingFilmsRepository implements FilmRepository {
+    private final FilmRepository repository;
+    private final boolean enabled;
+    private final EntityCache<Film> cache;
+
+    public CachingFilmsRepository(@Qualifier("DbFilmsRepository") FilmRepository repository,
+                                  @Value("${filmorate.cache.enabled:true}") boolean enabled,
+                                  @Value("${filmorate.cache.films.max-weight:16000000}") long maxWeight,
+                                  @Value("${filmorate.cache.ttl-ms:60000}") long ttlMs) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.cache = new EntityCache<>(maxWeight, ttlMs, CachingFilmsRepository::weigh);
+    }
+
+    @Override
+    public Optional<Film> get(Integer id) {
+        if (!enabled) return repository.get(id);
+
+        Film cached = cache.get(id);
+
+        if (cached != null) return Optional.of(copyOf(cached));
+
+        long generation = cache.getGeneration();
+        Optional<Film> film = repository.get(id);
+
+        film.ifPresent(loaded -> cache.put(id, copyOf(loaded), generation));
+        return film;
+    }
+
+    @Override
+    public boolean exists(Integer id) {
+        if (enabled && cache.containsKey(id)) return true;
+        return repository.exists(id);
+    }
+
+    @Override
+    public void create(Film film) {
+        repository.create(film);
+    }
+
+    @Override
+    public void createAll(List<Film> films) {
+        repository.createAll(films);
+    }
+
+    @Override
+    public void update(Film film) {
+        try {
+            repository.update(film);
+        } finally {
+            cache.invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public void delete(Film film) {
+        try {
+            repository.delete(film);
+        } finally {
+            cache.invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        try {
+            repository.deleteAll();
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        return repository.addLike(filmId, userId);
+    }
+
+    @Override
+    public boolean deleteLike(int filmId, int userId) {
+        return repository.deleteLike(filmId, userId);
+    }
+
+    @Override
+    public boolean[] applyLikes(List<LikeChange> changes) {
+        return repository.applyLikes(changes);
+    }
+
+    @Override
+    public int recountLikes() {
+        return repository.recountLikes();
+    }
+
+    @Override
+    public List<Film> getAll() {
+        return repository.getAll();
+    }
+
+    @Override
+    public List<Film> getPage(Integer after, int limit) {
+        return repository.getPage(after, limit);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Film> action) {
+        repository.forEach(action);
+    }
+
+    @Override
+    public List<Integer> getAllIds() {
+        return repository.getAllIds();
+    }
+
+    @Override
+    public List<Film> getPopularsFilms(int count) {
+        return repository.getPopularsFilms(count);
+    }
+
+    @Override
+    public List<Film> getPopularsFilms(int count, Integer genreId, Integer mpaId, Integer year) {
+        return repository.getPopularsFilms(count, genreId, mpaId, year);
+    }
+
+    /**
+     * Фильмы, которые есть в кэше, берутся из него, остальные загружаются из БД одним запросом и кладутся в кэш.
+     */
+    @Override
+    public List<Film> getByIds(List<Integer> ids) {
+        if (!enabled) return repository.getByIds(ids);
+
+        Map<Integer, Film> filmsById = new HashMap<>();
+        List<Integer> missingIds = new ArrayList<>();
+
+        for (Integer id : ids) {
+            Film cached = cache.get(id);
+
+            if (cached != null) {
+                filmsById.put(id, copyOf(cached));
+            } else {
+                missingIds.add(id);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            long generation = cache.getGeneration();
+
+            for (Film loaded : repository.getByIds(missingIds)) {
+                cache.put(loaded.getId(), copyOf(loaded), generation);
+                filmsById.put(loaded.getId(), loaded);
+            }
+        }
+
+        List<Film> films = new ArrayList<>(ids.size());
+
+        for (Integer id : ids) {
+            Film film = filmsById.get(id);
+
+            if (film != null) films.add(film);
+        }
+        return films;
+    }
+
+    @Override
+    public void forEachLike(BiConsumer<Integer, Integer> action) {
+        repository.forEachLike(action);
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikesCounts() {
+        return repository.getLikesCounts();
+    }
+
+    @Override
+    public List<Film.Genre> getTotalAvailableGenres() {
+        return repository.getTotalAvailableGenres();
+    }
+
+    @Override
+    public List<Film.Genre> getFilmGenres(Film film) {
+        return repository.getFilmGenres(film);
+    }
+
+    @Override
+    public List<Film.MotionPictureAssociation> getTotalAvailableMpa() {
+        return repository.getTotalAvailableMpa();
+    }
+
+    @Override
+    public Optional<Film.MotionPictureAssociation> getMpaById(int id) {
+        return repository.getMpaById(id);
+    }
+
+    @Override
+    public Optional<Film.Genre> getGenreById(int id) {
+        return repository.getGenreById(id);
+    }
+
+    /**
+     * Вывод статистики кэша в лог.
+     */
+    @Scheduled(fixedDelayString = "${filmorate.cache.stats-log-interval-ms:60000}")
+    public void logStats() {
+        if (enabled) log.info("Кэш фильмов: " + cache.getStats());
+    }
+
+    /**
+     * Оценка размера фильма в байтах.
+     */
+    private static int weigh(Film film) {
+        int weight = 96;
+
+        if (film.getName() != null) weight += 2 * film.getName().length();
+        if (film.getDescription() != null) weight += 2 * film.getDescription().length();
+        if (film.getGenres() != null) weight += 48 * film.getGenres().size();
+        return weight;
+    }
+
+    private static Film copyOf(Film film) {
+        Film copy = new Film();
+
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        copy.setRate(film.getRate());
+        /*
+         MPA и жанры неизменяемые, поэтому копия разделяет их с оригиналом, копируется только множество жанров
+         */
+        copy.setMpa(film.getMpa());
+        if (film.getGenres() != null) copy.setGenres(new LinkedHashSet<>(film.getGenres()));
+        return copy;
+    }
+}
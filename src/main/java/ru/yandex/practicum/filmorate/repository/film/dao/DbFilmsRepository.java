@@ -2,91 +2,310 @@ package ru.yandex.practicum.filmorate.repository.film.dao;
 
 import lombok.RequiredArgsConstructor;
 import org.hibernate.cfg.NotYetImplementedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import ru.yandex.practicum.filmorate.model.film.Film;
 import ru.yandex.practicum.filmorate.model.film.Film.Genre;
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
 import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.KnownIds;
+import ru.yandex.practicum.filmorate.repository.TransactionCallbacks;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Repository("DbFilmsRepository")
 @RequiredArgsConstructor
 public class DbFilmsRepository implements FilmRepository {
+    /**
+     * Число строк, которое драйвер получает из БД за одно обращение при потоковом чтении по сети. Встроенный H2
+     * его не использует: строки читаются по мере обхода только в режиме LAZY_QUERY_EXECUTION (задан
+     * в spring.datasource.url) и только в запросах без подзапроса во from и без сортировки, не совпадающей
+     * с порядком индекса. Иначе результат собирается целиком до чтения первой строки: до MAX_MEMORY_ROWS строк
+     * в памяти, остальные во временном файле.
+     */
+    private static final int STREAM_FETCH_SIZE = 500;
+    /**
+     * Максимальное число строк в одном пакете JDBC при пакетной вставке.
+     */
+    private static final int INSERT_BATCH_SIZE = 1000;
     /**
      * Объект шаблонного класса с базовым набором операций JDBC
      */
     private final NamedParameterJdbcOperations jdbcOperations;
+    /**
+     * id фильмов, существование которых уже подтверждено.
+     */
+    private final KnownIds knownIds = new KnownIds();
+    /**
+     * Использовать ли множество известных id при проверке существования фильмов.
+     */
+    @Value("${filmorate.repository.known-ids.enabled:true}")
+    private boolean isKnownIdsEnabled;
 
 
     @Override
-    public void addLike(int filmId, int userId) {
-        if (!isUserLikeFilm(filmId, userId)) {
-            String sqlQuery = "insert into LIKES(FILM_ID, WHO_LIKED_USER_ID) " +
-                    "values (:filmId, :userId)";
-            MapSqlParameterSource map = new MapSqlParameterSource();
-
-            map.addValue("filmId", filmId);
-            map.addValue("userId", userId);
-            jdbcOperations.update(sqlQuery, map);
+    @Transactional
+    public boolean addLike(int filmId, int userId) {
+        String sqlQuery = "merge into LIKES L " +
+                "using (select cast(:filmId as INTEGER) as FILM_ID, cast(:userId as INTEGER) as USER_ID) S " +
+                "on L.FILM_ID = S.FILM_ID and L.WHO_LIKED_USER_ID = S.USER_ID " +
+                "when not matched then insert (FILM_ID, WHO_LIKED_USER_ID) values (S.FILM_ID, S.USER_ID)";
+        boolean isAdded;
+
+        try {
+            isAdded = jdbcOperations.update(sqlQuery, Map.of("filmId", filmId, "userId", userId)) > 0;
+        } catch (DuplicateKeyException e) {
+            // лайк одновременно добавлен параллельным запросом
+            isAdded = false;
         }
+        if (isAdded) changeLikesCount(filmId, 1);
+        return isAdded;
     }
 
 
     @Override
-    public void deleteLike(int filmId, int userId) {
-        if (isUserLikeFilm(filmId, userId)) {
-            String sqlQuery = "delete from LIKES " +
-                    "where FILM_ID = :filmId and WHO_LIKED_USER_ID = :userId";
-            MapSqlParameterSource map = new MapSqlParameterSource();
-
-            map.addValue("filmId", filmId);
-            map.addValue("userId", userId);
-            jdbcOperations.update(sqlQuery, map);
+    @Transactional
+    public boolean deleteLike(int filmId, int userId) {
+        String sqlQuery = "delete from LIKES " +
+                "where FILM_ID = :filmId and WHO_LIKED_USER_ID = :userId";
+        boolean isDeleted = jdbcOperations.update(sqlQuery, Map.of("filmId", filmId, "userId", userId)) > 0;
+
+        if (isDeleted) changeLikesCount(filmId, -1);
+        return isDeleted;
+    }
+
+    @Override
+    @Transactional
+    public boolean[] applyLikes(List<LikeChange> changes) {
+        final String sqlAddQuery = "merge into LIKES L " +
+                "using (select cast(:filmId as INTEGER) as FILM_ID, cast(:userId as INTEGER) as USER_ID) S " +
+                "on L.FILM_ID = S.FILM_ID and L.WHO_LIKED_USER_ID = S.USER_ID " +
+                "when not matched then insert (FILM_ID, WHO_LIKED_USER_ID) values (S.FILM_ID, S.USER_ID)";
+        final String sqlDeleteQuery = "delete from LIKES " +
+                "where FILM_ID = :filmId and WHO_LIKED_USER_ID = :userId";
+        List<Integer> addIndexes = new ArrayList<>();
+        List<Integer> deleteIndexes = new ArrayList<>();
+
+        for (int i = 0; i < changes.size(); i++) {
+            (changes.get(i).isLiked() ? addIndexes : deleteIndexes).add(i);
+        }
+
+        boolean[] isChanged = new boolean[changes.size()];
+
+        TransactionStatus transaction = TransactionAspectSupport.currentTransactionStatus();
+        Object savepoint = transaction.createSavepoint();
+
+        try {
+            applyLikesBatch(sqlAddQuery, changes, addIndexes, isChanged);
+            transaction.releaseSavepoint(savepoint);
+        } catch (DuplicateKeyException e) {
+            // часть лайков одновременно добавлена в обход пакета - отменяем уже вставленные пакетом строки,
+            // чтобы они не считались существовавшими, и добавляем по одному
+            transaction.rollbackToSavepoint(savepoint);
+            for (int i : addIndexes) {
+                isChanged[i] = addLikeIfAbsent(sqlAddQuery, changes.get(i));
+            }
         }
+        applyLikesBatch(sqlDeleteQuery, changes, deleteIndexes, isChanged);
+
+        /*
+         * Хеш-таблица изменений счетчиков лайков:
+         * Ключ - id фильма.
+         * Значение - на сколько изменилось число лайков фильма.
+         */
+        Map<Integer, Integer> deltas = new HashMap<>();
+
+        for (int i = 0; i < changes.size(); i++) {
+            if (isChanged[i]) deltas.merge(changes.get(i).getFilmId(), changes.get(i).isLiked() ? 1 : -1, Integer::sum);
+        }
+
+        final String sqlCountQuery = "update FILMS set LIKES_COUNT = LIKES_COUNT + :delta where FILM_ID = :filmId";
+        SqlParameterSource[] countParams = deltas.entrySet().stream()
+                .filter(delta -> delta.getValue() != 0)
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("filmId", delta.getKey())
+                        .addValue("delta", delta.getValue()))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcOperations.batchUpdate(sqlCountQuery, countParams);
+        return isChanged;
     }
 
     /**
-     * Метод предназначен для проверки, существует ли уже лайк от пользователя фильму.
+     * Вспомогательный метод, выполняющий пакетный запрос для части изменений лайков.
      *
-     * @param filmId фильм, лайк к которому проверяется.
-     * @param userId пользователь, лайк от которого проверяется.
-     * @return true, если в БД существует запись о лайке пользователя фильма.
+     * @param sqlQuery  запрос с параметрами filmId и userId.
+     * @param changes   все изменения лайков.
+     * @param indexes   номера изменений, для которых выполняется запрос.
+     * @param isChanged результат: по номеру изменения - изменилось ли состояние лайка.
      */
-    private boolean isUserLikeFilm(int filmId, int userId) {
-        String sqlQuery = "select count(*) " +
-                "from LIKES " +
-                "where FILM_ID = :filmId and WHO_LIKED_USER_ID = :userId";
-        MapSqlParameterSource map = new MapSqlParameterSource();
+    private void applyLikesBatch(String sqlQuery, List<LikeChange> changes, List<Integer> indexes,
+                                 boolean[] isChanged) {
+        if (indexes.isEmpty()) return;
+
+        SqlParameterSource[] batchParams = indexes.stream()
+                .map(i -> toLikeParams(changes.get(i)))
+                .toArray(SqlParameterSource[]::new);
+        int[] updated = jdbcOperations.batchUpdate(sqlQuery, batchParams);
 
-        map.addValue("filmId", filmId);
-        map.addValue("userId", userId);
-        return jdbcOperations.queryForObject(sqlQuery, map, Integer.class) == 1;
+        for (int i = 0; i < updated.length; i++) {
+            isChanged[indexes.get(i)] = updated[i] > 0;
+        }
+    }
+
+    /**
+     * Вспомогательный метод, добавляющий один лайк. Лайк, одновременно добавленный другой транзакцией,
+     * не считается добавленным: его учла та транзакция.
+     *
+     * @return true, если лайк добавлен этим запросом.
+     */
+    private boolean addLikeIfAbsent(String sqlAddQuery, LikeChange change) {
+        try {
+            return jdbcOperations.update(sqlAddQuery, toLikeParams(change)) > 0;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private static MapSqlParameterSource toLikeParams(LikeChange change) {
+        return new MapSqlParameterSource()
+                .addValue("filmId", change.getFilmId())
+                .addValue("userId", change.getUserId());
+    }
+
+    /**
+     * Вспомогательный метод, изменяющий денормализованный счетчик лайков фильма (FILMS.LIKES_COUNT).
+     * Вызывается в той же транзакции, что и изменение таблицы LIKES.
+     *
+     * @param filmId фильм, счетчик лайков которого изменяется.
+     * @param delta  величина изменения счетчика.
+     */
+    private void changeLikesCount(int filmId, int delta) {
+        String sqlQuery = "update FILMS set LIKES_COUNT = LIKES_COUNT + :delta where FILM_ID = :filmId";
+
+        jdbcOperations.update(sqlQuery, Map.of("filmId", filmId, "delta", delta));
     }
 
 
+    @Override
+    @Transactional
+    public int recountLikes() {
+        String sqlQuery = "update FILMS " +
+                "set LIKES_COUNT = (select count(*) from LIKES where LIKES.FILM_ID = FILMS.FILM_ID) " +
+                "where LIKES_COUNT <> (select count(*) from LIKES where LIKES.FILM_ID = FILMS.FILM_ID)";
+
+        return jdbcOperations.update(sqlQuery, Map.of());
+    }
+
     @Override
     public List<Film> getPopularsFilms(int count) {
-        final String sqlQuery = "select * " +
+        final String sqlFilmsSelection = "select * " +
                 "from FILMS " +
-                "left join (select FILM_ID, count(*) as likes_count from LIKES group by FILM_ID) as likes on likes.FILM_ID = FILMS.FILM_ID " +
-                "left join MPA on FILMS.MPA_ID = MPA.MPA_ID " +
-                "order by likes_count desc " +
+                "order by LIKES_COUNT desc, FILM_ID " +
                 "limit :count";
 
-        return jdbcOperations.query(sqlQuery, Map.of("count", count), new FilmRowMapper());
+        return queryFilms(sqlFilmsSelection, "F.LIKES_COUNT desc, F.FILM_ID", Map.of("count", count));
+    }
+
+    /**
+     * В запрос попадают только заданные фильтры, чтобы каждый из них мог использовать индекс: жанр - индекс
+     * FILM_GENRES (GENRE_ID, FILM_ID), год и MPA - индекс FILMS (RELEASE_DATE, MPA_ID). Год задается диапазоном дат,
+     * а не функцией от RELEASE_DATE, иначе индекс не используется.
+     */
+    @Override
+    public List<Film> getPopularsFilms(int count, Integer genreId, Integer mpaId, Integer year) {
+        StringBuilder sqlFilmsSelection = new StringBuilder("select * from FILMS where true");
+        Map<String, Object> params = new HashMap<>();
+
+        if (genreId != null) {
+            sqlFilmsSelection.append(" and FILM_ID in (select FILM_ID from FILM_GENRES where GENRE_ID = :genreId)");
+            params.put("genreId", genreId);
+        }
+        if (year != null) {
+            sqlFilmsSelection.append(" and RELEASE_DATE >= :yearStart and RELEASE_DATE < :nextYearStart");
+            params.put("yearStart", LocalDate.ofYearDay(year, 1));
+            params.put("nextYearStart", LocalDate.ofYearDay(year + 1, 1));
+        }
+        if (mpaId != null) {
+            sqlFilmsSelection.append(" and MPA_ID = :mpaId");
+            params.put("mpaId", mpaId);
+        }
+        sqlFilmsSelection.append(" order by LIKES_COUNT desc, FILM_ID limit :count");
+        params.put("count", count);
+
+        return queryFilms(sqlFilmsSelection.toString(), "F.LIKES_COUNT desc, F.FILM_ID", params);
+    }
+
+    @Override
+    public List<Film> getByIds(List<Integer> ids) {
+        if (ids.isEmpty()) return List.of();
+
+        final String sqlFilmsSelection = "select * from FILMS where FILM_ID in (:ids)";
+        Map<Integer, Film> filmsById = new HashMap<>();
+        List<Film> films = new ArrayList<>(ids.size());
+
+        queryFilms(sqlFilmsSelection, "F.FILM_ID", Map.of("ids", ids))
+                .forEach(film -> filmsById.put(film.getId(), film));
+        for (Integer id : ids) {
+            Film film = filmsById.get(id);
+
+            if (film != null) films.add(film);
+        }
+        return films;
+    }
+
+    @Override
+    public void forEachLike(BiConsumer<Integer, Integer> action) {
+        final String sqlQuery = "select WHO_LIKED_USER_ID, FILM_ID " +
+                "from LIKES " +
+                "order by WHO_LIKED_USER_ID, FILM_ID";
+
+        jdbcOperations.getJdbcOperations().query(con -> {
+            PreparedStatement statement = con.prepareStatement(sqlQuery,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(rs.getInt("WHO_LIKED_USER_ID"), rs.getInt("FILM_ID")));
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikesCounts() {
+        final String sqlQuery = "select F.FILM_ID, count(L.WHO_LIKED_USER_ID) as LIKES " +
+                "from FILMS F " +
+                "left join LIKES L on L.FILM_ID = F.FILM_ID " +
+                "group by F.FILM_ID";
+        Map<Integer, Integer> likesCounts = new HashMap<>();
+
+        jdbcOperations.query(sqlQuery, Map.of(),
+                (RowCallbackHandler) rs -> likesCounts.put(rs.getInt("FILM_ID"), rs.getInt("LIKES")));
+        return likesCounts;
     }
 
 
@@ -99,6 +318,61 @@ public class DbFilmsRepository implements FilmRepository {
         jdbcOperations.update(sqlQuery, getSqlParametersWhenCreateAndUpdate(film), keyHolder);
         film.setId(keyHolder.getKey().intValue());
         updateFilmGenres(film);
+        knownIds.addAfterCommit(film.getId());
+    }
+
+    @Override
+    @Transactional
+    public void createAll(List<Film> films) {
+        final String sqlQuery = "insert into FILMS (NAME, DESCRIPTION, RELEASE_DATE, DURATION, RATE, MPA_ID) " +
+                "values (?, ?, ?, ?, ?, ?)";
+
+        jdbcOperations.getJdbcOperations().execute((ConnectionCallback<Void>) con -> {
+            try (PreparedStatement statement = con.prepareStatement(sqlQuery, new String[]{"FILM_ID"})) {
+                for (int from = 0; from < films.size(); from += INSERT_BATCH_SIZE) {
+                    List<Film> batch = films.subList(from, Math.min(from + INSERT_BATCH_SIZE, films.size()));
+
+                    for (Film film : batch) {
+                        statement.setString(1, film.getName());
+                        statement.setString(2, film.getDescription());
+                        statement.setObject(3, film.getReleaseDate());
+                        statement.setInt(4, film.getDuration());
+                        statement.setInt(5, film.getRate());
+                        statement.setInt(6, film.getMpa().getId());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (Film film : batch) {
+                            if (!keys.next()) throw new SQLException("Не получены id созданных фильмов");
+                            film.setId(keys.getInt(1));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+
+        final String sqlGenresQuery = "insert into FILM_GENRES(FILM_ID, GENRE_ID) values (:filmId, :genreId)";
+        List<SqlParameterSource> batchParams = new ArrayList<>();
+
+        for (Film film : films) {
+            if (film.getGenres() == null) continue;
+            for (Genre genre : film.getGenres()) {
+                batchParams.add(new MapSqlParameterSource()
+                        .addValue("filmId", film.getId())
+                        .addValue("genreId", genre.getId()));
+            }
+        }
+        for (int from = 0; from < batchParams.size(); from += INSERT_BATCH_SIZE) {
+            jdbcOperations.batchUpdate(sqlGenresQuery, batchParams
+                    .subList(from, Math.min(from + INSERT_BATCH_SIZE, batchParams.size()))
+                    .toArray(SqlParameterSource[]::new));
+        }
+        int[] ids = films.stream().mapToInt(Film::getId).toArray();
+
+        TransactionCallbacks.afterCommit(() -> Arrays.stream(ids).forEach(knownIds::add));
     }
 
     /**
@@ -142,7 +416,7 @@ public class DbFilmsRepository implements FilmRepository {
 
     @Override
     public List<Genre> getTotalAvailableGenres() {
-        final String sqlQuery = "select * from GENRES";
+        final String sqlQuery = "select * from GENRES order by GENRE_ID";
         List<Genre> totalGenres = jdbcOperations.query(sqlQuery, new GenresRowMapper());
 
         return totalGenres;
@@ -150,7 +424,7 @@ public class DbFilmsRepository implements FilmRepository {
 
     @Override
     public List<Film.MotionPictureAssociation> getTotalAvailableMpa() {
-        final String sqlQuery = "select * from MPA";
+        final String sqlQuery = "select * from MPA order by MPA_ID";
         List<Film.MotionPictureAssociation> totalMpa = jdbcOperations.query(sqlQuery, new MpaRowMapper());
         return totalMpa;
     }
@@ -238,84 +512,93 @@ public class DbFilmsRepository implements FilmRepository {
         throw new NotYetImplementedException("Удаление фильмов не реализовано");
     }
 
-    /**
-     * Вспомогательный метод, осуществляюсь запрос к БД и установку жанров фильму.
-     *
-     * @param film фильм, жанры которому будут установлены.
-     */
-    private void setFilmGenresTo(Film film) {
-        final String sqlQueryForGenres = "select * " +
-                "from FILM_GENRES " +
-                "left join GENRES G2 on G2.GENRE_ID = FILM_GENRES.GENRE_ID " +
-                "where FILM_ID = :filmId";
-        SqlRowSet sqlRowSet = jdbcOperations.queryForRowSet(sqlQueryForGenres, Map.of("filmId", film.getId()));
-
-        while (sqlRowSet.next()) {
-            int genreId = sqlRowSet.getInt("GENRE_ID");
-            String genreName = sqlRowSet.getString("GENRE_NAME");
-            Genre genre = new Genre();
-            genre.setId(genreId);
-            genre.setName(genreName);
-            film.getGenres().add(genre);
-        }
-    }
-
     @Override
     public Optional<Film> get(Integer id) {
-        final String sqlQuery = "select * from FILMS " +
-                "left join MPA M on FILMS.MPA_ID = M.MPA_ID " +
-                "where FILM_ID = :id ";
-        List<Film> films = jdbcOperations.query(sqlQuery, Map.of("id", id), new FilmRowMapper());
+        final String sqlFilmsSelection = "select * from FILMS where FILM_ID = :id";
+        List<Film> films = queryFilms(sqlFilmsSelection, "F.FILM_ID", Map.of("id", id));
 
         if (films.size() == 0) return Optional.empty();
+        return Optional.of(films.get(0));
+    }
+
+
+    @Override
+    public boolean exists(Integer id) {
+        if (isKnownIdsEnabled && knownIds.contains(id)) return true;
 
-        Film film = films.get(0);
+        final String sqlQuery = "select exists(select 1 from FILMS where FILM_ID = :id)";
+        boolean isExists = Boolean.TRUE.equals(
+                jdbcOperations.queryForObject(sqlQuery, Map.of("id", id), Boolean.class));
 
-        setFilmGenresTo(film);
-        return Optional.of(film);
+        if (isExists) knownIds.addAfterCommit(id);
+        return isExists;
     }
 
 
     @Override
     public List<Film> getAll() {
-        final String sqlQuery = "select * " +
-                "from FILMS " +
-                "left join MPA M on FILMS.MPA_ID = M.MPA_ID";
-        /*
-         * Хеш-мапа для всех фильмов вида:
-         * Ключ - id фильма.
-         * Значение - фильм.
-         */
-        Map<Integer, Film> films = jdbcOperations.query(sqlQuery, new FilmRowMapper()).stream()
-                .collect(Collectors.toMap(film -> film.getId(), film -> film));
+        return queryFilms("select * from FILMS", "F.FILM_ID", Map.of());
+    }
 
-        final String sqlQueryForGenres = "select * " +
-                "from FILM_GENRES " +
-                "left join GENRES G2 on G2.GENRE_ID = FILM_GENRES.GENRE_ID";
-        /*
-         * Результат запроса:
-         * FILM_ID - id фильма.
-         * GENRE_ID - id жанра.
-         * GENRE_NAME - имя жанра.
-         */
-        SqlRowSet sqlRowSet = jdbcOperations.queryForRowSet(sqlQueryForGenres, Map.of());
+    @Override
+    public List<Film> getPage(Integer after, int limit) {
+        final String sqlFilmsSelection = "select * from FILMS " +
+                "where FILM_ID > :after " +
+                "order by FILM_ID " +
+                "limit :limit";
 
-        /*
-         * Для каждого фильма из полученной хеш-мапы устанавливается жанр.
-         * id и название жанра, а также id фильма, которому они соответствуют известны из второго запроса.
-         * Объект фильма находится по его id из хеш-мапы, создается объект жанра и устанавливается ему в поле.
-         */
-        while (sqlRowSet.next()) {
-            int filmId = sqlRowSet.getInt("FILM_ID");
-            int genreId = sqlRowSet.getInt("GENRE_ID");
-            String genreName = sqlRowSet.getString("GENRE_NAME");
-            Genre genre = new Genre();
-
-            genre.setId(genreId);
-            genre.setName(genreName);
-            films.get(filmId).getGenres().add(genre);
-        }
-        return List.copyOf(films.values());
+        return queryFilms(sqlFilmsSelection, "F.FILM_ID", Map.of("after", after == null ? 0 : after, "limit", limit));
+    }
+
+    @Override
+    public void forEach(Consumer<? super Film> action) {
+        final String sqlQuery = getHydrationQuery("FILMS F", "F.FILM_ID");
+        FilmsAssembler assembler = new FilmsAssembler(action);
+
+        jdbcOperations.getJdbcOperations().query(con -> {
+            PreparedStatement statement = con.prepareStatement(sqlQuery,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) assembler::processRow);
+        assembler.finish();
+    }
+
+    /**
+     * Движок гидратации фильмов: за один запрос к БД загружает выбранные фильмы вместе с их MPA и жанрами.
+     * Все методы чтения фильмов должны использовать его, чтобы возвращать полностью заполненные объекты.
+     *
+     * @param sqlFilmsSelection подзапрос, выбирающий строки из FILMS (может содержать дополнительные столбцы,
+     *                          например, число лайков, на которые ссылается порядок сортировки).
+     * @param order             порядок сортировки фильмов по столбцам подзапроса с псевдонимом F. Порядок должен
+     *                          быть однозначным для каждого фильма, чтобы строки одного фильма шли подряд.
+     * @param params            параметры именованного sql-запроса.
+     * @return список фильмов в заданном порядке.
+     */
+    private List<Film> queryFilms(String sqlFilmsSelection, String order, Map<String, ?> params) {
+        return jdbcOperations.query(getHydrationQuery("(" + sqlFilmsSelection + ") as F", order), params,
+                new FilmsExtractor());
+    }
+
+    /**
+     * Формирование запроса движка гидратации фильмов.
+     *
+     * Жанры фильма не сортируются в запросе: их упорядочивает {@link FilmsAssembler}, поэтому запрос
+     * по таблице FILMS с порядком по FILM_ID совпадает с порядком первичного ключа и в режиме
+     * LAZY_QUERY_EXECUTION читается по мере обхода, без сбора всего результата.
+     *
+     * @param sqlFilmsSource источник строк фильмов с псевдонимом F: таблица FILMS или подзапрос по ней.
+     * @param order          порядок сортировки фильмов по столбцам источника F.
+     * @return запрос, возвращающий по строке на каждый жанр фильма (или одну строку, если жанров нет).
+     */
+    private static String getHydrationQuery(String sqlFilmsSource, String order) {
+        return "select F.*, M.MPA, G.GENRE_ID as FILM_GENRE_ID, G.GENRE_NAME " +
+                "from " + sqlFilmsSource + " " +
+                "left join MPA M on M.MPA_ID = F.MPA_ID " +
+                "left join FILM_GENRES FG on FG.FILM_ID = F.FILM_ID " +
+                "left join GENRES G on G.GENRE_ID = FG.GENRE_ID " +
+                "order by " + order;
     }
 
 
@@ -325,9 +608,13 @@ public class DbFilmsRepository implements FilmRepository {
     }
 
 
+    /**
+     * Получение id всех фильмов по возрастанию одним сканированием первичного ключа FILMS, без чтения фильмов.
+     */
     @Override
     public List<Integer> getAllIds() {
-        throw new NotYetImplementedException("Получение всех ids не реализовано");
+        return jdbcOperations.getJdbcOperations()
+                .queryForList("select FILM_ID from FILMS order by FILM_ID", Integer.class);
     }
 
     private static class FilmRowMapper implements RowMapper<Film> {
@@ -342,35 +629,91 @@ public class DbFilmsRepository implements FilmRepository {
             film.setReleaseDate(rs.getDate("RELEASE_DATE").toLocalDate());
             film.setDuration(rs.getInt("DURATION"));
 
-            Film.MotionPictureAssociation mpa = new Film.MotionPictureAssociation();
-
-            mpa.setId(rs.getInt("MPA_ID"));
-            mpa.setName(rs.getString("MPA"));
-            film.setMpa(mpa);
+            film.setMpa(Film.MotionPictureAssociation.canonical(rs.getInt("MPA_ID"), rs.getString("MPA")));
             film.setGenres(new LinkedHashSet<>());
             return film;
         }
     }
 
+    /**
+     * Собирает фильмы из результата запроса движка гидратации: строки одного фильма (по одной на жанр) идут подряд,
+     * из первой строки создается фильм, из каждой строки - его жанр. Собранный фильм передается обработчику, как
+     * только начинаются строки следующего фильма.
+     */
+    private static class FilmsAssembler {
+        private final FilmRowMapper filmRowMapper = new FilmRowMapper();
+        private final Consumer<? super Film> action;
+        /**
+         * Фильм, строки которого обрабатываются в данный момент.
+         */
+        private Film film;
+        private int rowNum;
+
+        private FilmsAssembler(Consumer<? super Film> action) {
+            this.action = action;
+        }
+
+        private void processRow(ResultSet rs) throws SQLException {
+            int filmId = rs.getInt("FILM_ID");
+
+            if (film == null || film.getId() != filmId) {
+                finish();
+                film = filmRowMapper.mapRow(rs, rowNum);
+            }
+
+            int genreId = rs.getInt("FILM_GENRE_ID");
+
+            if (!rs.wasNull()) film.getGenres().add(Genre.canonical(genreId, rs.getString("GENRE_NAME")));
+            rowNum++;
+        }
+
+        /**
+         * Передача обработчику последнего собранного фильма с жанрами по возрастанию id.
+         */
+        private void finish() {
+            if (film != null) {
+                sortGenres(film.getGenres());
+                action.accept(film);
+            }
+            film = null;
+        }
+
+        private static void sortGenres(LinkedHashSet<Genre> genres) {
+            if (genres.size() < 2) return;
+
+            List<Genre> sorted = new ArrayList<>(genres);
+
+            sorted.sort(Comparator.comparingInt(Genre::getId));
+            genres.clear();
+            genres.addAll(sorted);
+        }
+    }
+
+    private static class FilmsExtractor implements ResultSetExtractor<List<Film>> {
+        @Override
+        public List<Film> extractData(ResultSet rs) throws SQLException {
+            List<Film> films = new ArrayList<>();
+            FilmsAssembler assembler = new FilmsAssembler(films::add);
+
+            while (rs.next()) {
+                assembler.processRow(rs);
+            }
+            assembler.finish();
+            return films;
+        }
+    }
+
     private static class GenresRowMapper implements RowMapper<Genre> {
         @Override
         public Genre mapRow(ResultSet rs, int rowNum) throws SQLException {
-            Genre genre = new Genre();
-
-            genre.setId(rs.getInt("GENRE_ID"));
-            genre.setName(rs.getString("GENRE_NAME"));
-            return genre;
+            return Genre.canonical(rs.getInt("GENRE_ID"), rs.getString("GENRE_NAME"));
         }
     }
 
     private static class MpaRowMapper implements RowMapper<Film.MotionPictureAssociation> {
         @Override
         public Film.MotionPictureAssociation mapRow(ResultSet rs, int rowNum) throws SQLException {
-            Film.MotionPictureAssociation mpa = new Film.MotionPictureAssociation();
-
-            mpa.setId(rs.getInt("MPA_ID"));
-            mpa.setName(rs.getString("MPA"));
-            return mpa;
+            return Film.MotionPictureAssociation.canonical(rs.getInt("MPA_ID"), rs.getString("MPA"));
         }
     }
 }
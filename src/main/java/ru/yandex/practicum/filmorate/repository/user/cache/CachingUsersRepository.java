@@ -0,0 +1,219 @@
+package ru.yandex.practicum.filmorate.repository.user.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.user.User;
+import ru.yandex.practicum.filmorate.repository.EntityCache;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Репозиторий пользователей, кэширующий пользователей, запрошенных по id, поверх репозитория в БД (read-through).
+ * Пользователь удаляется из кэша при обновлении и удалении.
+ * В кэше хранятся копии пользователей и наружу отдаются копии, поэтому изменение полученного объекта не меняет кэш.
+ * Кэш включается настройкой filmorate.cache.enabled, при выключенном кэше все вызовы передаются репозиторию в БД.
+ */
+@Repository("CachingUsersRepository")
+@Slf4j
+public class CachingUsersRepository implements UserRepository {
+    private final UserRepository repository;
+    private final boolean enabled;
+    private final EntityCache<User> cache;
+
+    public CachingUsersRepository(@Qualifier("DbUsersRepository") UserRepository repository,
+                                  @Value("${filmorate.cache.enabled:true}") boolean enabled,
+                                  @Value("${filmorate.cache.users.max-weight:16000000}") long maxWeight,
+                                  @Value("${filmorate.cache.ttl-ms:60000}") long ttlMs) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.cache = new EntityCache<>(maxWeight, ttlMs, CachingUsersRepository::weigh);
+    }
+
+    @Override
+    public Optional<User> get(Integer id) {
+        if (!enabled) return repository.get(id);
+
+        User cached = cache.get(id);
+
+        if (cached != null) return Optional.of(copyOf(cached));
+
+        long generation = cache.getGeneration();
+        Optional<User> user = repository.get(id);
+
+        user.ifPresent(loaded -> cache.put(id, copyOf(loaded), generation));
+        return user;
+    }
+
+    @Override
+    public boolean exists(Integer id) {
+        if (enabled && cache.containsKey(id)) return true;
+        return repository.exists(id);
+    }
+
+    @Override
+    public void create(User user) {
+        repository.create(user);
+    }
+
+    @Override
+    public void update(User user) {
+        try {
+            repository.update(user);
+        } finally {
+            cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public void delete(User user) {
+        try {
+            repository.delete(user);
+        } finally {
+            cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        try {
+            repository.deleteAll();
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public List<User> getAll() {
+        return repository.getAll();
+    }
+
+    @Override
+    public List<User> getPage(Integer after, int limit) {
+        return repository.getPage(after, limit);
+    }
+
+    @Override
+    public void forEach(Consumer<? super User> action) {
+        repository.forEach(action);
+    }
+
+    @Override
+    public List<Integer> getAllIds() {
+        return repository.getAllIds();
+    }
+
+    @Override
+    public void addToFriends(Integer id, Integer friendId) {
+        repository.addToFriends(id, friendId);
+    }
+
+    @Override
+    public void deleteFromFriends(Integer id, Integer friendId) {
+        repository.deleteFromFriends(id, friendId);
+    }
+
+    @Override
+    public List<User> getFriends(Integer id) {
+        return repository.getFriends(id);
+    }
+
+    @Override
+    public List<User> getFriends(Integer id, Integer after, int limit) {
+        return repository.getFriends(id, after, limit);
+    }
+
+    @Override
+    public List<User> getConfirmFriends(Integer id) {
+        return repository.getConfirmFriends(id);
+    }
+
+    @Override
+    public List<User> getConfirmFriends(Integer id, Integer after, int limit) {
+        return repository.getConfirmFriends(id, after, limit);
+    }
+
+    @Override
+    public List<User> getCommonFriends(Integer id, Integer otherId) {
+        return repository.getCommonFriends(id, otherId);
+    }
+
+    @Override
+    public List<User> getFriendRecommendations(Integer id, int limit) {
+        return repository.getFriendRecommendations(id, limit);
+    }
+
+    @Override
+    public List<User> getByIds(List<Integer> ids) {
+        if (!enabled) return repository.getByIds(ids);
+
+        Map<Integer, User> usersById = new HashMap<>();
+        List<Integer> missingIds = new ArrayList<>();
+
+        for (Integer id : ids) {
+            User cached = cache.get(id);
+
+            if (cached != null) {
+                usersById.put(id, copyOf(cached));
+            } else {
+                missingIds.add(id);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            long generation = cache.getGeneration();
+
+            for (User loaded : repository.getByIds(missingIds)) {
+                cache.put(loaded.getId(), copyOf(loaded), generation);
+                usersById.put(loaded.getId(), loaded);
+            }
+        }
+
+        List<User> users = new ArrayList<>(ids.size());
+
+        for (Integer id : ids) {
+            User user = usersById.get(id);
+
+            if (user != null) users.add(user);
+        }
+        return users;
+    }
+
+    /**
+     * Вывод статистики кэша в лог.
+     */
+    @Scheduled(fixedDelayString = "${filmorate.cache.stats-log-interval-ms:60000}")
+    public void logStats() {
+        if (enabled) log.info("Кэш пользователей: " + cache.getStats());
+    }
+
+    /**
+     * Оценка размера пользователя в байтах.
+     */
+    private static int weigh(User user) {
+        int weight = 96;
+
+        if (user.getEmail() != null) weight += 2 * user.getEmail().length();
+        if (user.getLogin() != null) weight += 2 * user.getLogin().length();
+        if (user.getName() != null) weight += 2 * user.getName().length();
+        return weight;
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        return copy;
+    }
+}
@@ -1,6 +1,11 @@
 package ru.yandex.practicum.filmorate.repository.user.dao;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
@@ -8,13 +13,20 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.user.User;
+import ru.yandex.practicum.filmorate.repository.KnownIds;
+import ru.yandex.practicum.filmorate.repository.TransactionCallbacks;
 import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.repository.user.graph.FriendshipGraph;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -23,10 +35,52 @@ import java.util.stream.Collectors;
 @Repository("DbUsersRepository")
 @RequiredArgsConstructor
 public class DbUsersRepository implements UserRepository {
+    /**
+     * Число строк, которое драйвер получает из БД за одно обращение при потоковом чтении по сети. Встроенный H2
+     * его не использует, а читает строки по мере обхода в режиме LAZY_QUERY_EXECUTION (см. spring.datasource.url).
+     */
+    private static final int STREAM_FETCH_SIZE = 500;
+    /**
+     * Максимальное число id в одном условии in при загрузке пользователей по id.
+     */
+    private static final int IN_LIST_SIZE = 1000;
     /**
      * Объект шаблонного класса с базовым набором операций JDBC
      */
     private final NamedParameterJdbcOperations jdbcOperations;
+    /**
+     * id пользователей, существование которых уже подтверждено.
+     */
+    private final KnownIds knownIds = new KnownIds();
+    /**
+     * Использовать ли множество известных id при проверке существования пользователей.
+     */
+    @Value("${filmorate.repository.known-ids.enabled:true}")
+    private boolean isKnownIdsEnabled;
+    /**
+     * Граф заявок в друзья, построенный по FRIENDS_REQUESTS. Загружается при запуске приложения (или при первом
+     * обращении, если оно было раньше) и сбрасывается при удалении всех пользователей.
+     * Изменения заявок применяются к графу после фиксации транзакции (см. {@link #changeFriendsGraph(Consumer)}).
+     */
+    private volatile FriendshipGraph friendsGraph;
+    /**
+     * Изменения графа, зафиксированные во время его загрузки, или null, если граф не загружается.
+     * Применяются к загруженному графу перед его публикацией.
+     */
+    private List<Consumer<FriendshipGraph>> friendsGraphChanges;
+    /**
+     * Блокировка публикации графа и его изменений.
+     */
+    private final Object friendsGraphLock = new Object();
+    /**
+     * Блокировка загрузки графа: граф загружается одним потоком.
+     */
+    private final Object friendsGraphLoadLock = new Object();
+    /**
+     * Искать ли друзей по графу в памяти вместо запросов к FRIENDS_REQUESTS.
+     */
+    @Value("${filmorate.repository.friendship-graph.enabled:false}")
+    private boolean isFriendshipGraphEnabled;
 
     @Override
     public void create(User user) {
@@ -41,6 +95,7 @@ public class DbUsersRepository implements UserRepository {
         map.addValue("birthday", user.getBirthday());
         jdbcOperations.update(sqlQuery, map, keyHolder);
         user.setId(keyHolder.getKey().intValue());
+        knownIds.addAfterCommit(user.getId());
     }
 
     @Override
@@ -63,6 +118,8 @@ public class DbUsersRepository implements UserRepository {
         final String sqlQuery = "delete from USERS where USER_ID = :id";
 
         jdbcOperations.update(sqlQuery, Map.of("id", user.getId()));
+        knownIds.remove(user.getId());
+        changeFriendsGraph(graph -> graph.removeVertex(user.getId()));
     }
 
     @Override
@@ -75,6 +132,18 @@ public class DbUsersRepository implements UserRepository {
         return users.size() == 0 ? Optional.empty() : Optional.of(users.get(0));
     }
 
+    @Override
+    public boolean exists(Integer id) {
+        if (isKnownIdsEnabled && knownIds.contains(id)) return true;
+
+        final String sqlQuery = "select exists(select 1 from USERS where USER_ID = :id)";
+        boolean isExists = Boolean.TRUE.equals(
+                jdbcOperations.queryForObject(sqlQuery, Map.of("id", id), Boolean.class));
+
+        if (isExists) knownIds.addAfterCommit(id);
+        return isExists;
+    }
+
     @Override
     public List<User> getAll() {
         final String sqlQuery = "select USER_ID, NAME, EMAIL, LOGIN, BIRTHDAY " +
@@ -83,11 +152,45 @@ public class DbUsersRepository implements UserRepository {
         return jdbcOperations.query(sqlQuery, new UserRowMapper());
     }
 
+    @Override
+    public List<User> getPage(Integer after, int limit) {
+        final String sqlQuery = "select USER_ID, NAME, EMAIL, LOGIN, BIRTHDAY " +
+                "from USERS " +
+                "where USER_ID > :after " +
+                "order by USER_ID " +
+                "limit :limit";
+
+        return jdbcOperations.query(sqlQuery, Map.of("after", after == null ? 0 : after, "limit", limit),
+                new UserRowMapper());
+    }
+
+    @Override
+    public void forEach(Consumer<? super User> action) {
+        final String sqlQuery = "select USER_ID, NAME, EMAIL, LOGIN, BIRTHDAY " +
+                "from USERS " +
+                "order by USER_ID";
+        UserRowMapper userRowMapper = new UserRowMapper();
+
+        jdbcOperations.getJdbcOperations().query(con -> {
+            PreparedStatement statement = con.prepareStatement(sqlQuery,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(userRowMapper.mapRow(rs, rs.getRow())));
+    }
+
     @Override
     public void deleteAll() {
         final String sqlQuery = "delete from USERS";
 
         jdbcOperations.update(sqlQuery, Map.of());
+        knownIds.clear();
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (friendsGraphLock) {
+                friendsGraph = null;
+            }
+        });
     }
 
     @Override
@@ -97,12 +200,25 @@ public class DbUsersRepository implements UserRepository {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Добавление заявки в друзья. Повторная заявка ничего не меняет, граф дружбы меняется, только если заявка
+     * действительно добавлена.
+     */
     @Override
     public void addToFriends(Integer id, Integer friendId) {
-        final String sqlQuery = "insert into FRIENDS_REQUESTS (USER_ID_FROM, USER_ID_TO) " +
-                "values (:id, :friendId)";
+        final String sqlQuery = "merge into FRIENDS_REQUESTS F " +
+                "using (select cast(:id as INTEGER) as USER_ID_FROM, cast(:friendId as INTEGER) as USER_ID_TO) S " +
+                "on F.USER_ID_FROM = S.USER_ID_FROM and F.USER_ID_TO = S.USER_ID_TO " +
+                "when not matched then insert (USER_ID_FROM, USER_ID_TO) values (S.USER_ID_FROM, S.USER_ID_TO)";
+        boolean isAdded;
 
-        jdbcOperations.update(sqlQuery, Map.of("id", id, "friendId", friendId));
+        try {
+            isAdded = jdbcOperations.update(sqlQuery, Map.of("id", id, "friendId", friendId)) > 0;
+        } catch (DuplicateKeyException e) {
+            // заявка одновременно добавлена параллельным запросом
+            isAdded = false;
+        }
+        if (isAdded) changeFriendsGraph(graph -> graph.addEdge(id, friendId));
     }
 
     @Override
@@ -111,10 +227,13 @@ public class DbUsersRepository implements UserRepository {
                 "where USER_ID_FROM = :id and USER_ID_TO = :friendId";
 
         jdbcOperations.update(sqlQuery, Map.of("id", id, "friendId", friendId));
+        changeFriendsGraph(graph -> graph.removeEdge(id, friendId));
     }
 
     @Override
     public List<User> getFriends(Integer id) {
+        if (isFriendshipGraphEnabled) return getUsersByIds(getFriendsGraph().getOutgoing(id), null, Integer.MAX_VALUE);
+
         final String sqlQuery = "select USERS.USER_ID, USERS.NAME, USERS.EMAIL, USERS.LOGIN, USERS.BIRTHDAY " +
                 "from FRIENDS_REQUESTS " +
                 "left join USERS on USERS.USER_ID = FRIENDS_REQUESTS.USER_ID_TO " +
@@ -123,8 +242,25 @@ public class DbUsersRepository implements UserRepository {
         return jdbcOperations.query(sqlQuery, Map.of("id", id), new UserRowMapper());
     }
 
+    @Override
+    public List<User> getFriends(Integer id, Integer after, int limit) {
+        if (isFriendshipGraphEnabled) return getUsersByIds(getFriendsGraph().getOutgoing(id), after, limit);
+
+        final String sqlQuery = "select USERS.USER_ID, USERS.NAME, USERS.EMAIL, USERS.LOGIN, USERS.BIRTHDAY " +
+                "from FRIENDS_REQUESTS " +
+                "join USERS on USERS.USER_ID = FRIENDS_REQUESTS.USER_ID_TO " +
+                "where FRIENDS_REQUESTS.USER_ID_FROM = :id and FRIENDS_REQUESTS.USER_ID_TO > :after " +
+                "order by FRIENDS_REQUESTS.USER_ID_TO " +
+                "limit :limit";
+
+        return jdbcOperations.query(sqlQuery, Map.of("id", id, "after", after == null ? 0 : after, "limit", limit),
+                new UserRowMapper());
+    }
+
     @Override
     public List<User> getConfirmFriends(Integer id) {
+        if (isFriendshipGraphEnabled) return getUsersByIds(getFriendsGraph().getMutual(id), null, Integer.MAX_VALUE);
+
         final String sqlQuery = "select USERS.USER_ID, USERS.NAME, USERS.EMAIL, USERS.LOGIN, USERS.BIRTHDAY " +
                 "from FRIENDS_REQUESTS " +
                 "left join USERS on USERS.USER_ID = FRIENDS_REQUESTS.USER_ID_FROM " +
@@ -137,6 +273,196 @@ public class DbUsersRepository implements UserRepository {
     }
 
 
+    @Override
+    public List<User> getConfirmFriends(Integer id, Integer after, int limit) {
+        if (isFriendshipGraphEnabled) return getUsersByIds(getFriendsGraph().getMutual(id), after, limit);
+
+        final String sqlQuery = "select USERS.USER_ID, USERS.NAME, USERS.EMAIL, USERS.LOGIN, USERS.BIRTHDAY " +
+                "from FRIENDS_REQUESTS " +
+                "join FRIENDS_REQUESTS as BACK_REQUESTS " +
+                "on BACK_REQUESTS.USER_ID_FROM = FRIENDS_REQUESTS.USER_ID_TO " +
+                "and BACK_REQUESTS.USER_ID_TO = FRIENDS_REQUESTS.USER_ID_FROM " +
+                "join USERS on USERS.USER_ID = FRIENDS_REQUESTS.USER_ID_TO " +
+                "where FRIENDS_REQUESTS.USER_ID_FROM = :id and FRIENDS_REQUESTS.USER_ID_TO > :after " +
+                "order by FRIENDS_REQUESTS.USER_ID_TO " +
+                "limit :limit";
+
+        return jdbcOperations.query(sqlQuery, Map.of("id", id, "after", after == null ? 0 : after, "limit", limit),
+                new UserRowMapper());
+    }
+
+    /**
+     * Пересечение списков друзей выполняется в БД: для каждой заявки первого пользователя заявка второго
+     * пользователя тому же другу ищется по первичному ключу FRIENDS_REQUESTS (USER_ID_FROM, USER_ID_TO).
+     */
+    @Override
+    public List<User> getCommonFriends(Integer id, Integer otherId) {
+        if (isFriendshipGraphEnabled) {
+            return getUsersByIds(getFriendsGraph().getCommonOutgoing(id, otherId), null, Integer.MAX_VALUE);
+        }
+
+        final String sqlQuery = "select USERS.USER_ID, USERS.NAME, USERS.EMAIL, USERS.LOGIN, USERS.BIRTHDAY " +
+                "from FRIENDS_REQUESTS " +
+                "join FRIENDS_REQUESTS as OTHER_REQUESTS " +
+                "on OTHER_REQUESTS.USER_ID_FROM = :otherId " +
+                "and OTHER_REQUESTS.USER_ID_TO = FRIENDS_REQUESTS.USER_ID_TO " +
+                "join USERS on USERS.USER_ID = FRIENDS_REQUESTS.USER_ID_TO " +
+                "where FRIENDS_REQUESTS.USER_ID_FROM = :id " +
+                "order by FRIENDS_REQUESTS.USER_ID_TO";
+
+        return jdbcOperations.query(sqlQuery, Map.of("id", id, "otherId", otherId), new UserRowMapper());
+    }
+
+    /**
+     * По графу в памяти кандидаты считаются без загрузки пользователей, а из БД загружаются только рекомендуемые.
+     * Без графа рекомендации вычисляются одним запросом: заявки друзей пользователя группируются по адресату.
+     */
+    @Override
+    public List<User> getFriendRecommendations(Integer id, int limit) {
+        if (isFriendshipGraphEnabled) {
+            return getByIds(Arrays.stream(getFriendsGraph().recommend(id, limit)).boxed()
+                    .collect(Collectors.toList()));
+        }
+
+        final String sqlQuery = "select USERS.USER_ID, USERS.NAME, USERS.EMAIL, USERS.LOGIN, USERS.BIRTHDAY " +
+                "from FRIENDS_REQUESTS " +
+                "join FRIENDS_REQUESTS as FRIEND_REQUESTS " +
+                "on FRIEND_REQUESTS.USER_ID_FROM = FRIENDS_REQUESTS.USER_ID_TO " +
+                "join USERS on USERS.USER_ID = FRIEND_REQUESTS.USER_ID_TO " +
+                "where FRIENDS_REQUESTS.USER_ID_FROM = :id " +
+                "and FRIEND_REQUESTS.USER_ID_TO <> :id " +
+                "and not exists(select 1 from FRIENDS_REQUESTS as OWN_REQUESTS " +
+                "where OWN_REQUESTS.USER_ID_FROM = :id and OWN_REQUESTS.USER_ID_TO = FRIEND_REQUESTS.USER_ID_TO) " +
+                "and not exists(select 1 from FRIENDS_REQUESTS as INCOMING_REQUESTS " +
+                "where INCOMING_REQUESTS.USER_ID_FROM = FRIEND_REQUESTS.USER_ID_TO " +
+                "and INCOMING_REQUESTS.USER_ID_TO = :id) " +
+                "group by USERS.USER_ID, USERS.NAME, USERS.EMAIL, USERS.LOGIN, USERS.BIRTHDAY " +
+                "order by count(*) desc, USERS.USER_ID " +
+                "limit :limit";
+
+        return jdbcOperations.query(sqlQuery, Map.of("id", id, "limit", limit), new UserRowMapper());
+    }
+
+    /**
+     * Загрузка графа заявок в друзья при запуске приложения, если поиск друзей по графу включен.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFriendsGraph() {
+        if (isFriendshipGraphEnabled) getFriendsGraph();
+    }
+
+    /**
+     * Получение графа заявок в друзья. Если граф еще не загружен, он загружается из FRIENDS_REQUESTS.
+     * Изменения, зафиксированные во время загрузки, записываются и применяются к загруженному графу
+     * перед публикацией. Изменения графа идемпотентны, поэтому изменение, уже прочитанное из БД, ничего не меняет.
+     */
+    private FriendshipGraph getFriendsGraph() {
+        FriendshipGraph graph = friendsGraph;
+
+        if (graph != null) return graph;
+        synchronized (friendsGraphLoadLock) {
+            if (friendsGraph != null) return friendsGraph;
+            synchronized (friendsGraphLock) {
+                friendsGraphChanges = new ArrayList<>();
+            }
+
+            FriendshipGraph loadedGraph = null;
+
+            try {
+                loadedGraph = readFriendsGraph();
+            } finally {
+                synchronized (friendsGraphLock) {
+                    if (loadedGraph != null) {
+                        for (Consumer<FriendshipGraph> change : friendsGraphChanges) {
+                            change.accept(loadedGraph);
+                        }
+                        friendsGraph = loadedGraph;
+                    }
+                    friendsGraphChanges = null;
+                }
+            }
+            return loadedGraph;
+        }
+    }
+
+    /**
+     * Применение изменения к графу заявок в друзья после фиксации транзакции, в которой изменены заявки.
+     * Если граф загружается, изменение записывается, чтобы применить его к загруженному графу.
+     * Если граф не загружен и не загружается, изменение не нужно: граф будет загружен из БД.
+     */
+    private void changeFriendsGraph(Consumer<FriendshipGraph> change) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (friendsGraphLock) {
+                if (friendsGraph != null) change.accept(friendsGraph);
+                if (friendsGraphChanges != null) friendsGraphChanges.add(change);
+            }
+        });
+    }
+
+    private FriendshipGraph readFriendsGraph() {
+        final String sqlQuery = "select USER_ID_FROM, USER_ID_TO from FRIENDS_REQUESTS";
+        int[][] edges = {new int[1024], new int[1024]};
+        int[] edgeCount = {0};
+
+        jdbcOperations.getJdbcOperations().query(con -> {
+            PreparedStatement statement = con.prepareStatement(sqlQuery,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            if (edgeCount[0] == edges[0].length) {
+                edges[0] = Arrays.copyOf(edges[0], edges[0].length * 2);
+                edges[1] = Arrays.copyOf(edges[1], edges[1].length * 2);
+            }
+            edges[0][edgeCount[0]] = rs.getInt("USER_ID_FROM");
+            edges[1][edgeCount[0]++] = rs.getInt("USER_ID_TO");
+        });
+        return new FriendshipGraph(Arrays.copyOf(edges[0], edgeCount[0]), Arrays.copyOf(edges[1], edgeCount[0]));
+    }
+
+    @Override
+    public List<User> getByIds(List<Integer> ids) {
+        if (ids.isEmpty()) return List.of();
+
+        int[] sortedIds = ids.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        Map<Integer, User> usersById = getUsersByIds(sortedIds, null, Integer.MAX_VALUE).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+
+        return ids.stream()
+                .filter(usersById::containsKey)
+                .map(usersById::get)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Загрузка пользователей по упорядоченным id.
+     *
+     * @param ids   id пользователей по возрастанию.
+     * @param after id, после которого начинается выборка, или null.
+     * @param limit максимальное число пользователей.
+     * @return пользователи в порядке возрастания id.
+     */
+    private List<User> getUsersByIds(int[] ids, Integer after, int limit) {
+        final String sqlQuery = "select USER_ID, NAME, EMAIL, LOGIN, BIRTHDAY " +
+                "from USERS " +
+                "where USER_ID in (:ids) " +
+                "order by USER_ID";
+        int from = after == null ? 0 : after;
+        List<Integer> selectedIds = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+
+        for (int i = 0; i < ids.length && selectedIds.size() < limit; i++) {
+            if (ids[i] > from) selectedIds.add(ids[i]);
+        }
+        for (int start = 0; start < selectedIds.size(); start += IN_LIST_SIZE) {
+            List<Integer> chunk = selectedIds.subList(start, Math.min(start + IN_LIST_SIZE, selectedIds.size()));
+
+            users.addAll(jdbcOperations.query(sqlQuery, Map.of("ids", chunk), new UserRowMapper()));
+        }
+        return users;
+    }
+
     private static class UserRowMapper implements RowMapper<User> {
         @Override
         public User mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -0,0 +1,445 @@
+package ru.yandex.practicum.filmorate.repository.user.graph;
+
+import ru.yandex.practicum.filmorate.repository.collection.IntHashSet;
+import ru.yandex.practicum.filmorate.repository.collection.IntObjectHashMap;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Потокобезопасный граф заявок в друзья в памяти. Ребро from -> to означает заявку в друзья от пользователя from
+ * пользователю to.
+ * Основная часть графа хранится в формате CSR: для исходящих и входящих ребер - массив смещений по id вершины
+ * и массив соседей, отсортированных по id внутри каждой вершины. Изменения после построения хранятся в небольшом
+ * наборе добавленных и удаленных ребер (множества int по вершине, без упаковки) и вливаются в основную часть,
+ * когда их становится больше {@link #compactThreshold()}.
+ * Все методы возвращают id соседей в порядке возрастания, поэтому пересечения списков вычисляются слиянием.
+ */
+public class FriendshipGraph {
+    /**
+     * Минимальное число изменений, после которого они вливаются в основную часть графа.
+     */
+    private static final int MIN_COMPACT_THRESHOLD = 1024;
+    private static final int[] EMPTY = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Смещения исходящих ребер: соседи вершины v - outNeighbours[outOffsets[v]..outOffsets[v + 1]).
+     */
+    private int[] outOffsets;
+    private int[] outNeighbours;
+    /**
+     * Смещения входящих ребер: вершины, ссылающиеся на v, - inNeighbours[inOffsets[v]..inOffsets[v + 1]).
+     */
+    private int[] inOffsets;
+    private int[] inNeighbours;
+    /**
+     * Ребра, добавленные после построения основной части. Ключ - вершина, значение - соседи.
+     */
+    private final IntObjectHashMap<IntHashSet> addedOut = new IntObjectHashMap<>();
+    private final IntObjectHashMap<IntHashSet> addedIn = new IntObjectHashMap<>();
+    /**
+     * Ребра основной части, удаленные после ее построения. Ключ - начало ребра, значение - концы.
+     */
+    private final IntObjectHashMap<IntHashSet> removedOut = new IntObjectHashMap<>();
+    private int addedCount;
+    private int removedCount;
+    private int deltaSize;
+
+    /**
+     * Создание пустого графа.
+     */
+    public FriendshipGraph() {
+        this(EMPTY, EMPTY);
+    }
+
+    /**
+     * Построение графа по списку ребер. Ребра не должны повторяться.
+     *
+     * @param from начала ребер.
+     * @param to   концы ребер, to[i] - конец ребра, начинающегося в from[i].
+     */
+    public FriendshipGraph(int[] from, int[] to) {
+        build(from, to);
+    }
+
+    /**
+     * Добавление ребра. Повторное добавление ничего не меняет.
+     *
+     * @return true, если ребра не было.
+     */
+    public boolean addEdge(int from, int to) {
+        lock.writeLock().lock();
+        try {
+            if (hasEdgeUnlocked(from, to)) return false;
+            if (removeFromDelta(removedOut, from, to)) {
+                removedCount--;
+            } else {
+                addToDelta(addedOut, from, to);
+                addToDelta(addedIn, to, from);
+                addedCount++;
+            }
+            onChange();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаление ребра. Удаление отсутствующего ребра ничего не меняет.
+     *
+     * @return true, если ребро было.
+     */
+    public boolean removeEdge(int from, int to) {
+        lock.writeLock().lock();
+        try {
+            if (!hasEdgeUnlocked(from, to)) return false;
+            if (removeFromDelta(addedOut, from, to)) {
+                removeFromDelta(addedIn, to, from);
+                addedCount--;
+            } else {
+                addToDelta(removedOut, from, to);
+                removedCount++;
+            }
+            onChange();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаление всех ребер вершины.
+     */
+    public void removeVertex(int id) {
+        lock.writeLock().lock();
+        try {
+            for (int to : outgoing(id)) {
+                removeEdge(id, to);
+            }
+            for (int from : incoming(id)) {
+                removeEdge(from, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean hasEdge(int from, int to) {
+        lock.readLock().lock();
+        try {
+            return hasEdgeUnlocked(from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return вершины, которым вершина id отправила заявку, по возрастанию.
+     */
+    public int[] getOutgoing(int id) {
+        lock.readLock().lock();
+        try {
+            return outgoing(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return вершины, отправившие заявку вершине id, по возрастанию.
+     */
+    public int[] getIncoming(int id) {
+        lock.readLock().lock();
+        try {
+            return incoming(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return вершины, со взаимными с вершиной id заявками, по возрастанию.
+     */
+    public int[] getMutual(int id) {
+        lock.readLock().lock();
+        try {
+            return intersect(outgoing(id), incoming(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return вершины, которым отправили заявку обе вершины, по возрастанию.
+     */
+    public int[] getCommonOutgoing(int id, int otherId) {
+        lock.readLock().lock();
+        try {
+            return intersect(outgoing(id), outgoing(otherId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Рекомендация друзей: друзья друзей вершины, упорядоченные по убыванию числа общих друзей (при равенстве -
+     * по возрастанию id). Исключаются сама вершина, ее друзья и вершины, отправившие ей заявку.
+     * Кандидаты собираются в массив int и сортируются, число общих друзей кандидата - длина его серии в массиве,
+     * поэтому подсчет обходится без хеш-таблиц и упакованных значений.
+     *
+     * @param id    вершина, для которой подбираются рекомендации.
+     * @param limit максимальное число рекомендаций.
+     * @return id рекомендуемых вершин.
+     */
+    public int[] recommend(int id, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] friends = outgoing(id);
+            int[] requests = incoming(id);
+            int[][] friendsOfFriends = new int[friends.length][];
+            int total = 0;
+
+            for (int i = 0; i < friends.length; i++) {
+                friendsOfFriends[i] = outgoing(friends[i]);
+                total += friendsOfFriends[i].length;
+            }
+
+            int[] candidates = new int[total];
+            int size = 0;
+
+            for (int[] neighbours : friendsOfFriends) {
+                for (int candidate : neighbours) {
+                    if (candidate == id
+                            || Arrays.binarySearch(friends, candidate) >= 0
+                            || Arrays.binarySearch(requests, candidate) >= 0) continue;
+                    candidates[size++] = candidate;
+                }
+            }
+            Arrays.sort(candidates, 0, size);
+
+            /*
+             ключ кандидата: в старших 32 битах - дополнение числа общих друзей до Integer.MAX_VALUE, в младших - id,
+             поэтому возрастающий порядок ключей соответствует убыванию числа общих друзей, а при равенстве -
+             возрастанию id
+             */
+            long[] keys = new long[size];
+            int keyCount = 0;
+
+            for (int start = 0, end; start < size; start = end) {
+                end = start + 1;
+                while (end < size && candidates[end] == candidates[start]) {
+                    end++;
+                }
+                keys[keyCount++] = ((long) (Integer.MAX_VALUE - (end - start)) << 32)
+                        | (candidates[start] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(keys, 0, keyCount);
+
+            int[] result = new int[Math.max(0, Math.min(limit, keyCount))];
+
+            for (int i = 0; i < result.length; i++) {
+                result[i] = (int) keys[i];
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return число ребер в графе.
+     */
+    public int getEdgeCount() {
+        lock.readLock().lock();
+        try {
+            return outNeighbours.length - removedCount + addedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Вливание накопленных изменений в основную часть графа.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            int edgeCount = outNeighbours.length - removedCount + addedCount;
+            int[] from = new int[edgeCount];
+            int[] to = new int[edgeCount];
+            int[] edge = new int[1];
+
+            for (int vertex = 0; vertex < outOffsets.length - 1; vertex++) {
+                for (int i = outOffsets[vertex]; i < outOffsets[vertex + 1]; i++) {
+                    if (isRemoved(vertex, outNeighbours[i], false)) continue;
+                    from[edge[0]] = vertex;
+                    to[edge[0]++] = outNeighbours[i];
+                }
+            }
+            addedOut.forEach((vertex, neighbours) -> neighbours.forEach(neighbour -> {
+                from[edge[0]] = vertex;
+                to[edge[0]++] = neighbour;
+            }));
+            build(from, to);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Пересечение двух отсортированных массивов слиянием.
+     */
+    public static int[] intersect(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int size = 0;
+
+        for (int i = 0, j = 0; i < first.length && j < second.length; ) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Построение основной части графа и сброс накопленных изменений. Вызывается под блокировкой на запись
+     * или из конструктора.
+     */
+    private void build(int[] from, int[] to) {
+        int vertexCount = 0;
+
+        for (int i = 0; i < from.length; i++) {
+            vertexCount = Math.max(vertexCount, Math.max(from[i], to[i]) + 1);
+        }
+        outOffsets = new int[vertexCount + 1];
+        outNeighbours = new int[from.length];
+        inOffsets = new int[vertexCount + 1];
+        inNeighbours = new int[from.length];
+        fill(from, to, outOffsets, outNeighbours);
+        fill(to, from, inOffsets, inNeighbours);
+        addedOut.clear();
+        addedIn.clear();
+        removedOut.clear();
+        addedCount = 0;
+        removedCount = 0;
+        deltaSize = 0;
+    }
+
+    /**
+     * Заполнение массивов смещений и соседей сортировкой подсчетом по вершине-источнику.
+     */
+    private static void fill(int[] sources, int[] targets, int[] offsets, int[] neighbours) {
+        for (int source : sources) {
+            offsets[source + 1]++;
+        }
+        for (int vertex = 0; vertex < offsets.length - 1; vertex++) {
+            offsets[vertex + 1] += offsets[vertex];
+        }
+
+        int[] position = Arrays.copyOf(offsets, offsets.length - 1);
+
+        for (int i = 0; i < sources.length; i++) {
+            neighbours[position[sources[i]]++] = targets[i];
+        }
+        for (int vertex = 0; vertex < offsets.length - 1; vertex++) {
+            Arrays.sort(neighbours, offsets[vertex], offsets[vertex + 1]);
+        }
+    }
+
+    private int[] outgoing(int id) {
+        return merge(id, outOffsets, outNeighbours, addedOut.get(id), false);
+    }
+
+    private int[] incoming(int id) {
+        return merge(id, inOffsets, inNeighbours, addedIn.get(id), true);
+    }
+
+    /**
+     * Соседи вершины: соседи из основной части без удаленных ребер, слитые с добавленными соседями.
+     *
+     * @param isIncoming true, если соседи - начала ребер, ведущих в вершину.
+     */
+    private int[] merge(int id, int[] offsets, int[] neighbours, IntHashSet added, boolean isIncoming) {
+        int start = id >= 0 && id < offsets.length - 1 ? offsets[id] : 0;
+        int end = id >= 0 && id < offsets.length - 1 ? offsets[id + 1] : 0;
+        int addedSize = added == null ? 0 : added.size();
+
+        if (addedSize == 0 && removedCount == 0) return Arrays.copyOfRange(neighbours, start, end);
+
+        int[] result = new int[end - start + addedSize];
+        int size = 0;
+        int i = start;
+
+        if (added != null) {
+            int[] sortedAdded = added.toArray();
+
+            Arrays.sort(sortedAdded);
+            for (int neighbour : sortedAdded) {
+                while (i < end && neighbours[i] < neighbour) {
+                    if (!isRemoved(id, neighbours[i], isIncoming)) result[size++] = neighbours[i];
+                    i++;
+                }
+                result[size++] = neighbour;
+            }
+        }
+        for (; i < end; i++) {
+            if (!isRemoved(id, neighbours[i], isIncoming)) result[size++] = neighbours[i];
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private boolean isRemoved(int id, int neighbour, boolean isIncoming) {
+        if (removedCount == 0) return false;
+
+        IntHashSet removed = removedOut.get(isIncoming ? neighbour : id);
+
+        return removed != null && removed.contains(isIncoming ? id : neighbour);
+    }
+
+    private boolean hasEdgeUnlocked(int from, int to) {
+        IntHashSet added = addedOut.get(from);
+
+        if (added != null && added.contains(to)) return true;
+        if (from < 0 || from >= outOffsets.length - 1) return false;
+        return Arrays.binarySearch(outNeighbours, outOffsets[from], outOffsets[from + 1], to) >= 0
+                && !isRemoved(from, to, false);
+    }
+
+    private static void addToDelta(IntObjectHashMap<IntHashSet> delta, int vertex, int neighbour) {
+        IntHashSet neighbours = delta.get(vertex);
+
+        if (neighbours == null) {
+            neighbours = new IntHashSet();
+            delta.put(vertex, neighbours);
+        }
+        neighbours.add(neighbour);
+    }
+
+    private static boolean removeFromDelta(IntObjectHashMap<IntHashSet> delta, int vertex, int neighbour) {
+        IntHashSet neighbours = delta.get(vertex);
+
+        if (neighbours == null || !neighbours.remove(neighbour)) return false;
+        if (neighbours.isEmpty()) delta.remove(vertex);
+        return true;
+    }
+
+    private void onChange() {
+        if (++deltaSize > compactThreshold()) compact();
+    }
+
+    /**
+     * @return число изменений, после которого они вливаются в основную часть графа.
+     */
+    private int compactThreshold() {
+        return Math.max(MIN_COMPACT_THRESHOLD, outNeighbours.length / 8);
+    }
+}
@@ -1,90 +1,131 @@
 package ru.yandex.practicum.filmorate.repository.user.in_memory;
 
-import org.hibernate.cfg.NotYetImplementedException;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.user.User;
+import ru.yandex.practicum.filmorate.repository.SortedSnapshot;
 import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.repository.user.graph.FriendshipGraph;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 
 /**
  * Класс предназначен для хранения сущностей-пользователей в памяти.
+ * Репозиторий потокобезопасен: пользователи хранятся в неизменяемом снимке, упорядоченном по id
+ * (см. {@link SortedSnapshot}), и читаются без блокировок, id выдаются атомарным счетчиком, а граф друзей
+ * на массивах int синхронизирован сам (см. {@link FriendshipGraph}).
  */
 @Component("InMemoryUsersRepository")
 public class InMemoryUsersRepository implements UserRepository {
     /**
-     * Хеш-таблица, предназначенная для хранения пользователей по паре id пользователя - пользователь.
+     * Созданные пользователи по возрастанию id.
      */
-    private final HashMap<Integer, User> repository = new HashMap<>();
+    private final SortedSnapshot<User> repository = new SortedSnapshot<>(User::getId);
     /**
-     * Хеш-таблица, предназначенная для хранения друзей пользователя.
-     * Ключ - id пользователя, значение - множество друзей пользователя.
-     * Упорядочивание пользователей в множестве друзей происходит по значению их id.
+     * Граф друзей пользователей: ребро id -> friendId означает, что friendId - друг пользователя id.
+     * Соседи вершин хранятся упорядоченными по id.
      */
-    private final HashMap<Integer, TreeSet<User>> friendsRepository = new HashMap<>();
+    private volatile FriendshipGraph friendsGraph = new FriendshipGraph();
     /**
      * Инкрементируемое значение, предназначенное для установки id пользователей.
      */
-    private int id;
+    private final AtomicInteger id = new AtomicInteger();
 
     @Override
     public void create(User user) {
-        user.setId(++id);
-        repository.put(user.getId(), user);
-        friendsRepository.put(user.getId(), new TreeSet<>(new Comparator<User>() {
-            @Override
-            public int compare(User o1, User o2) {
-                if (o1.getId() == o2.getId()) return 0;
-                return o1.getId() - o2.getId();
-            }
-        }));
+        user.setId(id.incrementAndGet());
+        repository.put(user);
     }
 
     @Override
     public void update(User user) {
-        repository.put(user.getId(), user);
+        repository.put(user);
     }
 
     @Override
     public void delete(User user) {
         repository.remove(user.getId());
+        friendsGraph.removeVertex(user.getId());
     }
 
     @Override
     public List<User> getAll() {
-        return List.copyOf(repository.values());
+        return repository.getAll();
+    }
+
+    @Override
+    public List<User> getPage(Integer after, int limit) {
+        return repository.getPage(after, limit);
+    }
+
+    @Override
+    public void forEach(Consumer<? super User> action) {
+        repository.getAll().forEach(action);
+    }
+
+    @Override
+    public boolean exists(Integer id) {
+        return repository.contains(id);
     }
 
     @Override
     public List<Integer> getAllIds() {
-        return List.copyOf(repository.keySet());
+        return Arrays.stream(repository.getIds()).boxed().collect(Collectors.toList());
     }
 
     @Override
     public List<User> getFriends(Integer id) {
-        return List.copyOf(friendsRepository.get(id));
+        return toUsers(friendsGraph.getOutgoing(id), null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<User> getFriends(Integer id, Integer after, int limit) {
+        return toUsers(friendsGraph.getOutgoing(id), after, limit);
     }
 
-    /**
-     * @param id
-     * @return
-     */
     @Override
     public List<User> getConfirmFriends(Integer id) {
-        throw new NotYetImplementedException("Не реализовано для репозитория в памяти");
+        return toUsers(friendsGraph.getMutual(id), null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<User> getConfirmFriends(Integer id, Integer after, int limit) {
+        return toUsers(friendsGraph.getMutual(id), after, limit);
+    }
+
+    @Override
+    public List<User> getCommonFriends(Integer id, Integer otherId) {
+        return toUsers(friendsGraph.getCommonOutgoing(id, otherId), null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<User> getFriendRecommendations(Integer id, int limit) {
+        return Arrays.stream(friendsGraph.recommend(id, limit))
+                .mapToObj(repository::get)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<User> getByIds(List<Integer> ids) {
+        return ids.stream()
+                .map(repository::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     @Override
     public void addToFriends(Integer id, Integer friendId) {
-        friendsRepository.get(id).add(repository.get(friendId));
-        friendsRepository.get(friendId).add(repository.get(id));
+        friendsGraph.addEdge(id, friendId);
+        friendsGraph.addEdge(friendId, id);
     }
 
     @Override
     public void deleteFromFriends(Integer id, Integer friendId) {
-        friendsRepository.get(id).remove(repository.get(friendId));
-        friendsRepository.get(friendId).remove(repository.get(id));
+        friendsGraph.removeEdge(id, friendId);
+        friendsGraph.removeEdge(friendId, id);
     }
 
     @Override
@@ -95,6 +136,23 @@ public class InMemoryUsersRepository implements UserRepository {
     @Override
     public void deleteAll() {
         repository.clear();
-        friendsRepository.clear();
+        friendsGraph = new FriendshipGraph();
+    }
+
+    /**
+     * Получение пользователей по упорядоченным id.
+     *
+     * @param ids   id пользователей по возрастанию.
+     * @param after id, после которого начинается выборка, или null.
+     * @param limit максимальное число пользователей.
+     */
+    private List<User> toUsers(int[] ids, Integer after, int limit) {
+        int from = after == null ? 0 : after;
+        List<User> users = new ArrayList<>();
+
+        for (int i = 0; i < ids.length && users.size() < limit; i++) {
+            if (ids[i] > from) users.add(repository.get(ids[i]));
+        }
+        return users;
     }
 }
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
+
+import java.util.List;
+
+/**
+ * Получатель изменений лайков, сохраненных в репозитории. Используется индексами в памяти, которые строятся
+ * по лайкам и должны обновляться вместе с ними.
+ */
+public interface FilmLikesListener {
+    /**
+     * Обработка изменений лайков. Передаются только изменения, которые действительно изменили состояние лайка:
+     * повторная постановка или снятие лайка не передаются.
+     *
+     * @param changes примененные изменения лайков.
+     */
+    void onLikesChanged(List<LikeChange> changes);
+}
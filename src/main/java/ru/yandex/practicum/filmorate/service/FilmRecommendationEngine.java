@@ -0,0 +1,298 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Рекомендации фильмов методом коллаборативной фильтрации по сходству фильмов (item-item).
+ * В памяти хранятся лайки пользователей и разреженная матрица совместных лайков: для каждой пары фильмов - число
+ * пользователей, лайкнувших оба фильма. Сходство фильмов i и j - косинусная мера
+ * co(i, j) / sqrt(likes(i) * likes(j)). Оценка фильма для пользователя - сумма сходств фильма с фильмами,
+ * которые пользователь уже лайкнул; рекомендуются фильмы с наибольшей оценкой, которых пользователь еще не лайкнул.
+ * Матрица строится параллельно (fork-join) по таблице лайков при запуске приложения, обновляется при каждом
+ * изменении лайков (см. {@link FilmLikesListener}) и перестраивается по расписанию
+ * (filmorate.recommendations.rebuild-interval-ms); изменения, пришедшие во время построения, не теряются.
+ * Рекомендации вычисляются без обращения к БД.
+ * Включается настройкой filmorate.recommendations.enabled.
+ */
+@Component
+@Slf4j
+public class FilmRecommendationEngine implements FilmLikesListener {
+    /**
+     * Число пользователей, совместные лайки которых подсчитываются одной задачей без дальнейшего деления.
+     */
+    private static final int USERS_PER_TASK = 256;
+
+    private final FilmRepository repository;
+    private final boolean enabled;
+    private final LikesIndexState<Matrix> state = new LikesIndexState<>(new Matrix());
+
+    public FilmRecommendationEngine(@Qualifier("DbFilmsRepository") FilmRepository repository,
+                                    @Value("${filmorate.recommendations.enabled:true}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Построение матрицы по лайкам в репозитории при запуске приложения.
+     * Изменения лайков, пришедшие во время построения, применяются к новой матрице перед ее публикацией
+     * (см. {@link LikesIndexState}).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+        state.rebuild(this::build);
+
+        int[] sizes = state.read(matrix -> new int[]{matrix.likedFilmsByUser.size(), matrix.coLikes.size()});
+
+        log.info("Построена матрица сходства фильмов: пользователей " + sizes[0] + ", фильмов " + sizes[1]);
+    }
+
+    /**
+     * Перестроение матрицы по расписанию.
+     */
+    @Scheduled(initialDelayString = "${filmorate.recommendations.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${filmorate.recommendations.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * @return true, если матрица построена и по ней можно вычислять рекомендации.
+     */
+    public boolean isReady() {
+        return state.isReady();
+    }
+
+    /**
+     * Совместные лайки лайкнутого фильма увеличиваются со всеми фильмами, которые пользователь уже лайкнул,
+     * и уменьшаются при снятии лайка.
+     */
+    @Override
+    public void onLikesChanged(List<LikeChange> changes) {
+        state.update(matrix -> changes.forEach(matrix::apply));
+    }
+
+    /**
+     * Получение рекомендуемых пользователю фильмов.
+     *
+     * @param userId пользователь, для которого подбираются рекомендации.
+     * @param limit  максимальное число рекомендаций.
+     * @return id фильмов по убыванию оценки, при равенстве - по возрастанию id.
+     */
+    public List<Integer> recommend(int userId, int limit) {
+        return state.read(matrix -> {
+            Set<Integer> likedFilms = matrix.likedFilmsByUser.get(userId);
+
+            if (likedFilms == null || limit <= 0) return List.of();
+
+            Map<Integer, Double> scores = new HashMap<>();
+
+            for (int likedFilm : likedFilms) {
+                Map<Integer, Integer> row = matrix.coLikes.get(likedFilm);
+
+                if (row == null) continue;
+
+                double likedFilmLikes = matrix.likesByFilm.get(likedFilm);
+
+                row.forEach((film, count) -> {
+                    if (likedFilms.contains(film)) return;
+                    scores.merge(film, count / Math.sqrt(likedFilmLikes * matrix.likesByFilm.get(film)),
+                            Double::sum);
+                });
+            }
+            return selectBest(scores, limit);
+        });
+    }
+
+    /**
+     * Чтение лайков из репозитория и параллельный подсчет совместных лайков.
+     */
+    private Matrix build() {
+        Matrix matrix = new Matrix();
+
+        repository.forEachLike((userId, filmId) -> {
+            matrix.likedFilmsByUser.computeIfAbsent(userId, id -> new HashSet<>()).add(filmId);
+            matrix.likesByFilm.merge(filmId, 1, Integer::sum);
+        });
+
+        int[][] likedFilms = matrix.likedFilmsByUser.values().stream()
+                .map(films -> films.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+
+        matrix.coLikes = ForkJoinPool.commonPool().invoke(new CoLikesTask(likedFilms, 0, likedFilms.length));
+        return matrix;
+    }
+
+    /**
+     * Выбор limit фильмов с наибольшей оценкой кучей ограниченного размера: на вершине кучи - худший из лучших.
+     */
+    private static List<Integer> selectBest(Map<Integer, Double> scores, int limit) {
+        PriorityQueue<Map.Entry<Integer, Double>> best = new PriorityQueue<>(
+                Math.max(1, Math.min(limit, scores.size())),
+                (first, second) -> {
+                    int byScore = Double.compare(first.getValue(), second.getValue());
+
+                    return byScore != 0 ? byScore : Integer.compare(second.getKey(), first.getKey());
+                });
+
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            best.add(entry);
+            if (best.size() > limit) best.poll();
+        }
+
+        Integer[] films = new Integer[best.size()];
+
+        for (int i = films.length - 1; i >= 0; i--) {
+            films[i] = best.poll().getKey();
+        }
+        return Arrays.asList(films);
+    }
+
+    /**
+     * Лайки и матрица совместных лайков.
+     */
+    private static class Matrix {
+        /**
+         * Лайки пользователей. Ключ - id пользователя, значение - фильмы, которые он лайкнул.
+         */
+        private final Map<Integer, Set<Integer>> likedFilmsByUser = new HashMap<>();
+        /**
+         * Число лайков фильмов. Ключ - id фильма.
+         */
+        private final Map<Integer, Integer> likesByFilm = new HashMap<>();
+        /**
+         * Матрица совместных лайков. Ключ - id фильма, значение - таблица: id другого фильма - число
+         * пользователей, лайкнувших оба фильма. Матрица симметрична, нулевые элементы не хранятся.
+         */
+        private Map<Integer, Map<Integer, Integer>> coLikes = new HashMap<>();
+
+        /**
+         * Применение изменения лайка. Повторная постановка или снятие лайка матрицу не меняют.
+         */
+        private void apply(LikeChange change) {
+            if (change.isLiked()) {
+                addLike(change.getFilmId(), change.getUserId());
+            } else {
+                deleteLike(change.getFilmId(), change.getUserId());
+            }
+        }
+
+        private void addLike(int filmId, int userId) {
+            Set<Integer> likedFilms = likedFilmsByUser.computeIfAbsent(userId, id -> new HashSet<>());
+
+            if (!likedFilms.add(filmId)) return;
+            likesByFilm.merge(filmId, 1, Integer::sum);
+            for (int otherFilm : likedFilms) {
+                if (otherFilm == filmId) continue;
+                coLikes.computeIfAbsent(filmId, id -> new HashMap<>()).merge(otherFilm, 1, Integer::sum);
+                coLikes.computeIfAbsent(otherFilm, id -> new HashMap<>()).merge(filmId, 1, Integer::sum);
+            }
+        }
+
+        private void deleteLike(int filmId, int userId) {
+            Set<Integer> likedFilms = likedFilmsByUser.get(userId);
+
+            if (likedFilms == null || !likedFilms.remove(filmId)) return;
+            if (likedFilms.isEmpty()) likedFilmsByUser.remove(userId);
+            likesByFilm.computeIfPresent(filmId, (id, likes) -> likes > 1 ? likes - 1 : null);
+            for (int otherFilm : likedFilms) {
+                decrement(filmId, otherFilm);
+                decrement(otherFilm, filmId);
+            }
+        }
+
+        private void decrement(int filmId, int otherFilm) {
+            Map<Integer, Integer> row = coLikes.get(filmId);
+
+            if (row == null) return;
+            row.computeIfPresent(otherFilm, (id, count) -> count > 1 ? count - 1 : null);
+            if (row.isEmpty()) coLikes.remove(filmId);
+        }
+    }
+
+    /**
+     * Подсчет совместных лайков для диапазона пользователей. Диапазон делится пополам, пока в нем больше
+     * {@link #USERS_PER_TASK} пользователей, частичные матрицы складываются.
+     */
+    private static class CoLikesTask extends RecursiveTask<Map<Integer, Map<Integer, Integer>>> {
+        private final int[][] likedFilms;
+        private final int from;
+        private final int to;
+
+        private CoLikesTask(int[][] likedFilms, int from, int to) {
+            this.likedFilms = likedFilms;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Integer, Map<Integer, Integer>> compute() {
+            if (to - from <= USERS_PER_TASK) return countCoLikes();
+
+            int middle = (from + to) >>> 1;
+            CoLikesTask left = new CoLikesTask(likedFilms, from, middle);
+
+            left.fork();
+
+            Map<Integer, Map<Integer, Integer>> right = new CoLikesTask(likedFilms, middle, to).compute();
+
+            return merge(left.join(), right);
+        }
+
+        private Map<Integer, Map<Integer, Integer>> countCoLikes() {
+            Map<Integer, Map<Integer, Integer>> counts = new HashMap<>();
+
+            for (int user = from; user < to; user++) {
+                int[] films = likedFilms[user];
+
+                for (int i = 0; i < films.length; i++) {
+                    Map<Integer, Integer> row = counts.computeIfAbsent(films[i], id -> new HashMap<>());
+
+                    for (int j = 0; j < films.length; j++) {
+                        if (i != j) row.merge(films[j], 1, Integer::sum);
+                    }
+                }
+            }
+            return counts;
+        }
+
+        /**
+         * Сложение частичных матриц: меньшая добавляется к большей.
+         */
+        private static Map<Integer, Map<Integer, Integer>> merge(Map<Integer, Map<Integer, Integer>> first,
+                                                                 Map<Integer, Map<Integer, Integer>> second) {
+            Map<Integer, Map<Integer, Integer>> larger = first.size() >= second.size() ? first : second;
+            Map<Integer, Map<Integer, Integer>> smaller = larger == first ? second : first;
+
+            smaller.forEach((film, row) -> {
+                Map<Integer, Integer> largerRow = larger.get(film);
+
+                if (largerRow == null) {
+                    larger.put(film, row);
+                } else {
+                    row.forEach((otherFilm, count) -> largerRow.merge(otherFilm, count, Integer::sum));
+                }
+            });
+            return larger;
+        }
+    }
+
+}
@@ -2,31 +2,90 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.film.FilmSuggestion;
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
 import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.TransactionCallbacks;
+import ru.yandex.practicum.filmorate.service.search.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.service.search.FilmTitleAutocomplete;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class FilmService {
-    @Qualifier("DbFilmsRepository")
+    @Qualifier("CachingFilmsRepository")
     @NonNull
     private final FilmRepository repository;
     @NonNull
     private final ValidateService validateService;
+    @NonNull
+    private final LikesWriteBehindBuffer likesBuffer;
+    @NonNull
+    private final ReferenceDataRegistry referenceData;
+    @NonNull
+    private final PopularFilmsIndex popularFilms;
+    @NonNull
+    private final List<FilmLikesListener> likesListeners;
+    @NonNull
+    private final FilmRecommendationEngine recommendations;
+    @NonNull
+    private final FilmSearchIndex searchIndex;
+    @NonNull
+    private final FilmTitleAutocomplete titleAutocomplete;
+    @NonNull
+    private final LikesBitmapIndex likesIndex;
 
     public List<Film> getAll() {
         return repository.getAll();
     }
 
+    public Page<Film> getPage(Integer after, int limit) {
+        return Page.of(repository.getPage(after, limit + 1), limit, Film::getId);
+    }
+
+    public void forEachFilm(Consumer<? super Film> action) {
+        repository.forEach(action);
+    }
+
     public void create(Film film) {
         validateService.checkAndSetGenres(film);
         validateService.checkAndSetMpa(film);
         repository.create(film);
+        TransactionCallbacks.afterCommit(() -> indexCreated(film));
+    }
+
+    /**
+     * Создание фильмов одной транзакцией. Фильмы добавляются в рейтинг, поиск и подсказки только после фиксации
+     * транзакции, чтобы при откате в индексах в памяти не оставалось id фильмов, которых нет в БД.
+     */
+    @Transactional
+    public List<Integer> createAll(List<Film> films) {
+        validateService.checkAndSetGenresAndMpa(films);
+        repository.createAll(films);
+        TransactionCallbacks.afterCommit(() -> films.forEach(this::indexCreated));
+        return films.stream()
+                .map(Film::getId)
+                .collect(Collectors.toList());
+    }
+
+    private void indexCreated(Film film) {
+        popularFilms.addFilm(film.getId());
+        searchIndex.index(film);
+        titleAutocomplete.index(film);
     }
 
     public void update(Film film) {
@@ -34,24 +93,100 @@ public class FilmService {
         validateService.checkAndSetGenres(film);
         validateService.checkAndSetMpa(film);
         repository.update(film);
+        searchIndex.index(film);
+        titleAutocomplete.index(film);
     }
 
     public void addLike(int filmId, int userId) {
         validateService.isFilmCreated(filmId);
         validateService.isUserCreated(userId);
-        repository.addLike(filmId, userId);
+        if (likesBuffer.isEnabled()) {
+            likesBuffer.addLike(filmId, userId);
+        } else {
+            if (repository.addLike(filmId, userId)) notifyLikeChanged(new LikeChange(filmId, userId, true));
+        }
     }
 
     public void deleteLike(int filmId, int userId) {
         validateService.isFilmCreated(filmId);
         validateService.isUserCreated(userId);
-        repository.deleteLike(filmId, userId);
+        if (likesBuffer.isEnabled()) {
+            likesBuffer.deleteLike(filmId, userId);
+        } else {
+            if (repository.deleteLike(filmId, userId)) notifyLikeChanged(new LikeChange(filmId, userId, false));
+        }
+    }
+
+    private void notifyLikeChanged(LikeChange change) {
+        List<LikeChange> changes = List.of(change);
+
+        likesListeners.forEach(listener -> listener.onLikesChanged(changes));
+    }
+
+    /**
+     * Сверка счетчиков лайков фильмов с таблицей лайков, построение рейтинга популярных фильмов и дерева
+     * подсказок названий (оно учитывает популярность) при запуске приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recountLikes() {
+        int fixed = repository.recountLikes();
+
+        if (fixed > 0) log.warn("Исправлены счетчики лайков у фильмов: " + fixed);
+        popularFilms.rebuild();
+        titleAutocomplete.rebuild();
     }
 
     public List<Film> getPopulars(int count) {
+        if (popularFilms.isReady()) return repository.getByIds(popularFilms.getTop(count));
         return repository.getPopularsFilms(count);
     }
 
+    /**
+     * Получение популярных фильмов с фильтрами. Без фильтров фильмы берутся из рейтинга популярных фильмов в памяти.
+     */
+    public List<Film> getPopulars(int count, Integer genreId, Integer mpaId, Integer year) {
+        if (genreId == null && mpaId == null && year == null) return getPopulars(count);
+        return repository.getPopularsFilms(count, genreId, mpaId, year);
+    }
+
+    /**
+     * Подсказки названий фильмов по введенному началу.
+     */
+    public List<FilmSuggestion> autocomplete(String prefix, int limit) {
+        return titleAutocomplete.suggest(prefix, limit);
+    }
+
+    /**
+     * Полнотекстовый поиск фильмов по названию и описанию.
+     */
+    public List<Film> search(String query, int limit) {
+        return repository.getByIds(searchIndex.search(query, limit));
+    }
+
+    /**
+     * Получение фильмов, рекомендуемых пользователю по лайкам похожих пользователей.
+     */
+    public List<Film> getRecommendations(int userId, int limit) {
+        validateService.isUserCreated(userId);
+        return repository.getByIds(recommendations.recommend(userId, limit));
+    }
+
+    public int getLikesCount(int filmId) {
+        validateService.isFilmCreated(filmId);
+        return likesIndex.getLikesCount(filmId);
+    }
+
+    /**
+     * Получение фильмов, лайкнутых обоими пользователями.
+     */
+    public List<Film> getCommonLikedFilms(int userId, int otherUserId) {
+        validateService.isUserCreated(userId);
+        validateService.isUserCreated(otherUserId);
+        return repository.getByIds(Arrays.stream(likesIndex.getCommonLikedFilms(userId, otherUserId))
+                .boxed()
+                .collect(Collectors.toList()));
+    }
+
     public Film get(int id) {
         Film film = repository.get(id)
                 .orElseThrow(() -> new NotFoundException("Не найден фильм с id = " + id));
@@ -60,24 +195,24 @@ public class FilmService {
     }
 
     public Film.MotionPictureAssociation getMpa(int id) {
-        Film.MotionPictureAssociation mpa = repository.getMpaById(id)
-                .orElseThrow(() -> new NotFoundException("Не найден mpa id = " + id));
+        Film.MotionPictureAssociation mpa = referenceData.getMpa(id);
 
+        if (mpa == null) throw new NotFoundException("Не найден mpa id = " + id);
         return mpa;
     }
 
     public List<Film.MotionPictureAssociation> getAllMpa() {
-        return repository.getTotalAvailableMpa();
+        return referenceData.getMpa();
     }
 
     public List<Film.Genre> getAllGenres() {
-        return repository.getTotalAvailableGenres();
+        return referenceData.getGenres();
     }
 
     public Film.Genre getGenre(int id) {
-        Film.Genre genre = repository.getGenreById(id)
-                .orElseThrow(() -> new NotFoundException("Не найден genre id = " + id));
+        Film.Genre genre = referenceData.getGenre(id);
 
+        if (genre == null) throw new NotFoundException("Не найден genre id = " + id);
         return genre;
     }
 }
@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.collection.IntObjectHashMap;
+import ru.yandex.practicum.filmorate.repository.collection.RoaringBitmap;
+
+import java.util.List;
+
+/**
+ * Индекс лайков в памяти в виде сжатых битовых множеств (см. {@link RoaringBitmap}): для каждого фильма -
+ * множество лайкнувших его пользователей, для каждого пользователя - множество лайкнутых им фильмов.
+ * Число лайков, общие лайкнувшие двух фильмов и общие лайкнутые фильмы двух пользователей вычисляются
+ * пересечением множеств без обращения к БД.
+ * Индекс строится по таблице лайков при запуске приложения (или при первом обращении, если оно было раньше),
+ * обновляется при каждом изменении лайков (см. {@link FilmLikesListener}) и перестраивается по расписанию
+ * (filmorate.likes-index.rebuild-interval-ms). Изменения, пришедшие во время построения, не теряются
+ * (см. {@link LikesIndexState}).
+ */
+@Component
+@Slf4j
+public class LikesBitmapIndex implements FilmLikesListener {
+    private static final int[] NO_IDS = new int[0];
+
+    private final FilmRepository repository;
+    private final LikesIndexState<Bitmaps> state = new LikesIndexState<>(new Bitmaps());
+
+    public LikesBitmapIndex(@Qualifier("DbFilmsRepository") FilmRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Построение индекса по лайкам в репозитории.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int[] likes = new int[1];
+
+        state.rebuild(() -> {
+            Bitmaps bitmaps = new Bitmaps();
+
+            repository.forEachLike((userId, filmId) -> {
+                bitmaps.add(filmId, userId);
+                likes[0]++;
+            });
+            return bitmaps;
+        });
+
+        int[] sizes = state.read(bitmaps -> new int[]{bitmaps.usersByFilm.size(), bitmaps.filmsByUser.size()});
+
+        log.info("Построен индекс лайков: лайков " + likes[0] + ", фильмов " + sizes[0] +
+                ", пользователей " + sizes[1]);
+    }
+
+    /**
+     * Перестроение индекса по расписанию.
+     */
+    @Scheduled(initialDelayString = "${filmorate.likes-index.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${filmorate.likes-index.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    @Override
+    public void onLikesChanged(List<LikeChange> changes) {
+        state.update(bitmaps -> changes.forEach(bitmaps::apply));
+    }
+
+    /**
+     * @return число лайков фильма.
+     */
+    public int getLikesCount(int filmId) {
+        state.ensureReady(this::rebuild);
+        return state.read(bitmaps -> {
+            RoaringBitmap users = bitmaps.usersByFilm.get(filmId);
+
+            return users == null ? 0 : users.getCardinality();
+        });
+    }
+
+    /**
+     * @return id пользователей, лайкнувших оба фильма, по возрастанию.
+     */
+    public int[] getCommonLikers(int filmId, int otherFilmId) {
+        state.ensureReady(this::rebuild);
+        return state.read(bitmaps -> intersect(bitmaps.usersByFilm, filmId, otherFilmId));
+    }
+
+    /**
+     * @return id фильмов, лайкнутых обоими пользователями, по возрастанию.
+     */
+    public int[] getCommonLikedFilms(int userId, int otherUserId) {
+        state.ensureReady(this::rebuild);
+        return state.read(bitmaps -> intersect(bitmaps.filmsByUser, userId, otherUserId));
+    }
+
+    private static int[] intersect(IntObjectHashMap<RoaringBitmap> index, int id, int otherId) {
+        RoaringBitmap first = index.get(id);
+        RoaringBitmap second = index.get(otherId);
+
+        return first == null || second == null ? NO_IDS : first.and(second);
+    }
+
+    /**
+     * Множества лайков в обе стороны.
+     */
+    private static class Bitmaps {
+        /**
+         * Пользователи, лайкнувшие фильм. Ключ - id фильма.
+         */
+        private final IntObjectHashMap<RoaringBitmap> usersByFilm = new IntObjectHashMap<>();
+        /**
+         * Фильмы, лайкнутые пользователем. Ключ - id пользователя.
+         */
+        private final IntObjectHashMap<RoaringBitmap> filmsByUser = new IntObjectHashMap<>();
+
+        /**
+         * Применение изменения лайка. Повторная постановка или снятие лайка множества не меняют.
+         */
+        private void apply(LikeChange change) {
+            if (change.isLiked()) {
+                add(change.getFilmId(), change.getUserId());
+            } else {
+                remove(usersByFilm, change.getFilmId(), change.getUserId());
+                remove(filmsByUser, change.getUserId(), change.getFilmId());
+            }
+        }
+
+        private void add(int filmId, int userId) {
+            add(usersByFilm, filmId, userId);
+            add(filmsByUser, userId, filmId);
+        }
+
+        private static void add(IntObjectHashMap<RoaringBitmap> index, int key, int value) {
+            RoaringBitmap values = index.get(key);
+
+            if (values == null) {
+                values = new RoaringBitmap();
+                index.put(key, values);
+            }
+            values.add(value);
+        }
+
+        private static void remove(IntObjectHashMap<RoaringBitmap> index, int key, int value) {
+            RoaringBitmap values = index.get(key);
+
+            if (values != null && values.remove(value) && values.isEmpty()) index.remove(key);
+        }
+    }
+}
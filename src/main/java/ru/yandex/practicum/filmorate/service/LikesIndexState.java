@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Состояние индекса в памяти, которое строится по репозиторию и обновляется изменениями лайков.
+ * Новое состояние строится без блокировки, а изменения, пришедшие за время построения, записываются в журнал
+ * и повторно применяются к новому состоянию под блокировкой перед его публикацией. Поэтому изменения, сделанные
+ * во время построения (и до первого построения), не теряются.
+ * Журнал начинается до чтения репозитория, поэтому в нем могут оказаться изменения, которые уже учтены
+ * в построенном состоянии: изменения должны быть идемпотентными относительно снимка - повторное применение
+ * изменения, уже отраженного в состоянии, его не меняет.
+ * Построения выполняются по одному.
+ *
+ * @param <S> тип состояния.
+ */
+final class LikesIndexState<S> {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildMonitor = new Object();
+    private S state;
+    /**
+     * Изменения, пришедшие во время построения, или null, если построение не идет.
+     */
+    private List<Consumer<? super S>> journal;
+    private volatile boolean isReady;
+
+    /**
+     * @param initial состояние до первого построения.
+     */
+    LikesIndexState(S initial) {
+        this.state = initial;
+    }
+
+    /**
+     * @return true, если состояние построено хотя бы один раз.
+     */
+    boolean isReady() {
+        return isReady;
+    }
+
+    /**
+     * Построение нового состояния и его публикация.
+     *
+     * @param builder     построение состояния по репозиторию, выполняется без блокировки.
+     * @param afterReplay действие над новым состоянием после применения журнала, перед публикацией.
+     */
+    void rebuild(Supplier<? extends S> builder, Consumer<? super S> afterReplay) {
+        synchronized (rebuildMonitor) {
+            lock.writeLock().lock();
+            try {
+                journal = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            S newState;
+
+            try {
+                newState = builder.get();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    journal = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                journal.forEach(change -> change.accept(newState));
+                afterReplay.accept(newState);
+                journal = null;
+                state = newState;
+                isReady = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    void rebuild(Supplier<? extends S> builder) {
+        rebuild(builder, newState -> {
+        });
+    }
+
+    /**
+     * Построение состояния при обращении до первого построения. Если построение уже идет, ожидает его окончания.
+     *
+     * @param rebuild построение состояния.
+     */
+    void ensureReady(Runnable rebuild) {
+        if (isReady) return;
+        synchronized (rebuildMonitor) {
+            if (!isReady) rebuild.run();
+        }
+    }
+
+    /**
+     * Изменение состояния: применяется к текущему состоянию, если оно построено, и записывается в журнал,
+     * если идет построение.
+     */
+    void update(Consumer<? super S> change) {
+        lock.writeLock().lock();
+        try {
+            if (isReady) change.accept(state);
+            if (journal != null) journal.add(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Чтение текущего состояния под блокировкой на чтение.
+     */
+    <R> R read(Function<? super S, ? extends R> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(state);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
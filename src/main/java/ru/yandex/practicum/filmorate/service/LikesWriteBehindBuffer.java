@@ -0,0 +1,259 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.LikesOverloadException;
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Буфер отложенной записи лайков (write-behind).
+ * Изменения лайков накапливаются в памяти: повторные лайки и снятия лайка одной парой фильм-пользователь
+ * схлопываются в последнее состояние. Накопленные изменения записываются в репозиторий пакетами не больше
+ * max-batch-size раз в flush-interval-ms миллисекунд или сразу, как только их набирается max-batch-size.
+ * Если пакет не записан, его изменения записываются по одному, чтобы ошибка одного изменения не мешала записи
+ * остальных. Незаписанное изменение возвращается в буфер, а после max-retries неудачных попыток отбрасывается.
+ * Число ожидающих записи изменений ограничено capacity: при переполнении поток запроса ждет освобождения места
+ * не дольше offer-timeout-ms, после чего запрос отклоняется. При остановке приложения буфер записывается полностью.
+ * Включается настройкой filmorate.likes.write-behind.enabled.
+ */
+@Component
+@Slf4j
+public class LikesWriteBehindBuffer {
+    private final FilmRepository repository;
+    private final List<FilmLikesListener> likesListeners;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final int capacity;
+    private final long offerTimeoutMs;
+    private final int maxRetries;
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Условие, о котором сигнализирует запись пакета: в буфере освободилось место.
+     */
+    private final Condition notFull = lock.newCondition();
+    /**
+     * Ожидающие записи изменения.
+     * Ключ - пара id фильма и id пользователя (см. {@link #toKey(int, int)}).
+     * Значение - итоговое состояние лайка: true - лайк стоит, false - лайка нет.
+     */
+    private Map<Long, Boolean> pending = new LinkedHashMap<>();
+    /**
+     * Число неудачных попыток записи изменений, возвращенных в буфер.
+     * Ключ - пара id фильма и id пользователя. Сбрасывается при записи и при новом изменении той же пары.
+     */
+    private final Map<Long, Integer> failedAttempts = new HashMap<>();
+    /**
+     * Число изменений в записываемом в данный момент пакете. Учитывается в ограничении capacity.
+     */
+    private int inFlight;
+    private boolean isFlushRequested;
+    private final ScheduledExecutorService flusher;
+
+    public LikesWriteBehindBuffer(@Qualifier("CachingFilmsRepository") FilmRepository repository,
+                                  List<FilmLikesListener> likesListeners,
+                                  @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                                  @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                                  @Value("${filmorate.likes.write-behind.max-batch-size:1000}") int maxBatchSize,
+                                  @Value("${filmorate.likes.write-behind.capacity:100000}") int capacity,
+                                  @Value("${filmorate.likes.write-behind.offer-timeout-ms:1000}") long offerTimeoutMs,
+                                  @Value("${filmorate.likes.write-behind.max-retries:3}") int maxRetries) {
+        this.repository = repository;
+        this.likesListeners = likesListeners;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.capacity = capacity;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.maxRetries = maxRetries;
+
+        if (enabled) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "likes-write-behind");
+
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * @return true, если отложенная запись лайков включена.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Постановка в буфер лайка фильму от пользователя.
+     *
+     * @param filmId фильм, которому ставится лайк.
+     * @param userId пользователь, который ставит лайк.
+     */
+    public void addLike(int filmId, int userId) {
+        offer(filmId, userId, true);
+    }
+
+    /**
+     * Постановка в буфер снятия лайка у фильма пользователем.
+     *
+     * @param filmId фильм, у которого снимается лайк.
+     * @param userId пользователь, который снимает лайк.
+     */
+    public void deleteLike(int filmId, int userId) {
+        offer(filmId, userId, false);
+    }
+
+    private void offer(int filmId, int userId, boolean liked) {
+        long key = toKey(filmId, userId);
+
+        lock.lock();
+        try {
+            long nanosLeft = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+
+            while (!pending.containsKey(key) && pending.size() + inFlight >= capacity) {
+                requestFlush();
+                if (nanosLeft <= 0) {
+                    throw new LikesOverloadException("Буфер лайков переполнен, повторите запрос позже");
+                }
+                nanosLeft = notFull.awaitNanos(nanosLeft);
+            }
+            pending.put(key, liked);
+            failedAttempts.remove(key);
+            if (pending.size() >= maxBatchSize) requestFlush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LikesOverloadException("Ожидание места в буфере лайков прервано");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Внеочередная запись буфера. Вызывается под блокировкой.
+     */
+    private void requestFlush() {
+        if (!isFlushRequested) {
+            isFlushRequested = true;
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * Запись накопленных изменений в репозиторий пакетами не больше max-batch-size.
+     * Место в буфере освобождается по мере записи пакетов.
+     */
+    public synchronized void flush() {
+        List<LikeChange> changes = new ArrayList<>();
+
+        lock.lock();
+        try {
+            isFlushRequested = false;
+            if (pending.isEmpty()) return;
+            pending.forEach((key, liked) -> changes.add(new LikeChange((int) (key >>> 32), key.intValue(), liked)));
+            pending = new LinkedHashMap<>();
+            inFlight = changes.size();
+        } finally {
+            lock.unlock();
+        }
+
+        for (int from = 0; from < changes.size(); from += maxBatchSize) {
+            List<LikeChange> batch = changes.subList(from, Math.min(from + maxBatchSize, changes.size()));
+            List<LikeChange> applied = new ArrayList<>(batch.size());
+            // незаписанные изменения по номеру в пакете
+            boolean[] isFailed = new boolean[batch.size()];
+
+            try {
+                collectApplied(batch, repository.applyLikes(batch), applied);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось записать пакет лайков (" + batch.size() + "), изменения записываются по одному",
+                        e);
+                for (int i = 0; i < batch.size(); i++) {
+                    LikeChange change = batch.get(i);
+
+                    try {
+                        collectApplied(List.of(change), repository.applyLikes(List.of(change)), applied);
+                    } catch (RuntimeException changeException) {
+                        log.warn("Не удалось записать изменение лайка " + change, changeException);
+                        isFailed[i] = true;
+                    }
+                }
+            }
+
+            lock.lock();
+            try {
+                for (int i = 0; i < batch.size(); i++) {
+                    LikeChange change = batch.get(i);
+
+                    if (isFailed[i]) {
+                        retryLater(change);
+                    } else {
+                        failedAttempts.remove(toKey(change.getFilmId(), change.getUserId()));
+                    }
+                }
+                inFlight -= batch.size();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (!applied.isEmpty()) likesListeners.forEach(listener -> listener.onLikesChanged(applied));
+        }
+    }
+
+    private static void collectApplied(List<LikeChange> batch, boolean[] isChanged, List<LikeChange> applied) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (isChanged[i]) applied.add(batch.get(i));
+        }
+    }
+
+    /**
+     * Возврат незаписанного изменения в буфер. Вызывается под блокировкой.
+     * Если за время записи для той же пары фильм-пользователь появилось более новое изменение, возвращать нечего.
+     * Изменение, которое не удалось записать max-retries раз, отбрасывается.
+     */
+    private void retryLater(LikeChange change) {
+        long key = toKey(change.getFilmId(), change.getUserId());
+
+        if (pending.containsKey(key)) return;
+
+        int attempts = failedAttempts.getOrDefault(key, 0) + 1;
+
+        if (attempts >= maxRetries) {
+            log.error("Изменение лайка " + change + " не записано за " + attempts + " попыток и отброшено");
+            return;
+        }
+        pending.put(key, change.isLiked());
+        failedAttempts.put(key, attempts);
+    }
+
+    /**
+     * Остановка периодической записи и запись оставшихся изменений при остановке приложения.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) return;
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    private static long toKey(int filmId, int userId) {
+        return ((long) filmId << 32) | (userId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,207 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.collection.IntObjectHashMap;
+import ru.yandex.practicum.filmorate.repository.collection.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Рейтинг популярности фильмов в памяти.
+ * Хранит число лайков каждого фильма и упорядоченное множество фильмов по убыванию числа лайков (при равенстве -
+ * по возрастанию id), поэтому N самых популярных фильмов выбираются за O(N) без обращения к БД.
+ * Рейтинг обновляется при каждом изменении лайков (см. {@link FilmLikesListener}), строится по таблице лайков
+ * при запуске приложения и перестраивается по расписанию (filmorate.popular-index.rebuild-interval-ms),
+ * чтобы исправить возможные расхождения с БД. Изменения лайков, пришедшие во время построения, не теряются
+ * (см. {@link LikesIndexState}).
+ * Пока рейтинг не построен, популярные фильмы выбираются запросом к БД.
+ * Включается настройкой filmorate.popular-index.enabled.
+ */
+@Component
+@Slf4j
+public class PopularFilmsIndex implements FilmLikesListener {
+    private final FilmRepository repository;
+    private final boolean enabled;
+    private final LikesIndexState<Ranking> state = new LikesIndexState<>(new Ranking());
+
+    public PopularFilmsIndex(@Qualifier("DbFilmsRepository") FilmRepository repository,
+                             @Value("${filmorate.popular-index.enabled:true}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return true, если рейтинг построен и по нему можно выбирать популярные фильмы.
+     */
+    public boolean isReady() {
+        return state.isReady();
+    }
+
+    /**
+     * Построение рейтинга по фактическим лайкам в репозитории.
+     * Рейтинг строится по самим лайкам, а не по их числу: изменения, пришедшие во время построения, применяются
+     * к новому рейтингу только если меняют множество лайкнувших фильм, поэтому лайк, уже прочитанный
+     * из репозитория, не учитывается дважды. После применения изменений лайки отбрасываются.
+     */
+    public void rebuild() {
+        if (!enabled) return;
+        state.rebuild(this::build, Ranking::forgetLikes);
+        log.info("Построен рейтинг популярных фильмов: фильмов " + getFilmsCount());
+    }
+
+    /**
+     * Перестроение рейтинга по расписанию.
+     */
+    @Scheduled(initialDelayString = "${filmorate.popular-index.rebuild-interval-ms:600000}",
+            fixedDelayString = "${filmorate.popular-index.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Добавление в рейтинг нового фильма без лайков.
+     *
+     * @param filmId id созданного фильма.
+     */
+    public void addFilm(int filmId) {
+        state.update(ranking -> ranking.addFilm(filmId));
+    }
+
+    @Override
+    public void onLikesChanged(List<LikeChange> changes) {
+        state.update(ranking -> changes.forEach(ranking::apply));
+    }
+
+    /**
+     * Получение id наиболее популярных фильмов.
+     *
+     * @param count сколько фильмов требуется.
+     * @return id фильмов по убыванию числа лайков, при равенстве - по возрастанию id.
+     */
+    public List<Integer> getTop(int count) {
+        return state.read(ranking -> {
+            List<Integer> ids = new ArrayList<>(Math.min(count, ranking.order.size()));
+            Iterator<Long> iterator = ranking.order.iterator();
+
+            while (ids.size() < count && iterator.hasNext()) {
+                ids.add(iterator.next().intValue());
+            }
+            return ids;
+        });
+    }
+
+    /**
+     * Получение числа лайков фильма.
+     *
+     * @param filmId id фильма.
+     * @return число лайков или 0, если фильма нет в рейтинге или рейтинг еще не построен.
+     */
+    public int getLikes(int filmId) {
+        return state.read(ranking -> ranking.likesByFilm.getOrDefault(filmId, 0));
+    }
+
+    private int getFilmsCount() {
+        return state.read(ranking -> ranking.likesByFilm.size());
+    }
+
+    /**
+     * Чтение лайков и фильмов из репозитория: лайки - одним проходом по таблице лайков, фильмы (в том числе
+     * без лайков) - списком id.
+     */
+    private Ranking build() {
+        Ranking ranking = new Ranking();
+        IntObjectHashMap<RoaringBitmap> likedUsers = new IntObjectHashMap<>();
+
+        repository.forEachLike((userId, filmId) -> {
+            RoaringBitmap users = likedUsers.get(filmId);
+
+            if (users == null) {
+                users = new RoaringBitmap();
+                likedUsers.put(filmId, users);
+            }
+            users.add(userId);
+        });
+        repository.getAllIds().forEach(ranking::addFilm);
+        likedUsers.forEach((filmId, users) -> ranking.setLikes(filmId, users.getCardinality()));
+        ranking.likedUsers = likedUsers;
+        return ranking;
+    }
+
+    /**
+     * Ключ рейтинга: в старших 32 битах - дополнение числа лайков до Integer.MAX_VALUE, в младших - id фильма.
+     * Возрастающий порядок ключей соответствует убыванию числа лайков, а при равенстве - возрастанию id.
+     */
+    private static long toRankKey(int filmId, int likes) {
+        return ((long) (Integer.MAX_VALUE - likes) << 32) | (filmId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Состояние рейтинга.
+     */
+    private static class Ranking {
+        /**
+         * Число лайков фильмов. Ключ - id фильма, значение - число лайков.
+         */
+        private final Map<Integer, Integer> likesByFilm = new HashMap<>();
+        /**
+         * Фильмы в порядке популярности. Элемент - ключ рейтинга (см. {@link #toRankKey(int, int)}).
+         */
+        private final TreeSet<Long> order = new TreeSet<>();
+        /**
+         * Пользователи, лайкнувшие фильм, по данным репозитория. Ключ - id фильма.
+         * Хранятся только в построенном, но еще не опубликованном рейтинге.
+         */
+        private IntObjectHashMap<RoaringBitmap> likedUsers;
+
+        private void addFilm(int filmId) {
+            if (!likesByFilm.containsKey(filmId)) setLikes(filmId, 0);
+        }
+
+        /**
+         * Применение изменения лайка. Если известны лайки фильма, число лайков меняется, только если изменение
+         * меняет множество лайкнувших фильм.
+         */
+        private void apply(LikeChange change) {
+            if (likedUsers != null) {
+                RoaringBitmap users = likedUsers.get(change.getFilmId());
+
+                if (users == null) {
+                    users = new RoaringBitmap();
+                    likedUsers.put(change.getFilmId(), users);
+                }
+                if (change.isLiked() ? !users.add(change.getUserId()) : !users.remove(change.getUserId())) return;
+            }
+
+            int likes = likesByFilm.getOrDefault(change.getFilmId(), 0) + (change.isLiked() ? 1 : -1);
+
+            if (likes < 0) {
+                log.warn("Удаление лайка сделало бы число лайков фильма с id = " + change.getFilmId()
+                        + " отрицательным, изменение пропущено: " + change);
+                return;
+            }
+            setLikes(change.getFilmId(), likes);
+        }
+
+        private void setLikes(int filmId, int likes) {
+            Integer previous = likesByFilm.put(filmId, likes);
+
+            if (previous != null) order.remove(toRankKey(filmId, previous));
+            order.add(toRankKey(filmId, likes));
+        }
+
+        private void forgetLikes() {
+            likedUsers = null;
+        }
+    }
+}
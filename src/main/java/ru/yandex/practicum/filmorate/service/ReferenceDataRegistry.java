@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Реестр справочных данных - жанров и возрастных рейтингов MPA.
+ * Справочники загружаются из репозитория один раз и хранятся в массивах, индексированных по id, поэтому поиск
+ * по id и получение всего справочника не обращаются к БД и не создают объектов.
+ * Справочники перезагружаются по расписанию (filmorate.reference-data.refresh-interval-ms) или явным вызовом
+ * {@link #refresh()}; каждая перезагрузка увеличивает версию реестра.
+ */
+@Component
+@Slf4j
+public class ReferenceDataRegistry {
+    private final FilmRepository repository;
+    /**
+     * Текущий снимок справочников. Заменяется целиком при перезагрузке, поэтому читатели видят согласованные данные
+     * без блокировок.
+     */
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataRegistry(@Qualifier("DbFilmsRepository") FilmRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Загрузка справочников из репозитория.
+     */
+    @PostConstruct
+    public void refresh() {
+        List<Film.Genre> genres = List.copyOf(repository.getTotalAvailableGenres());
+        List<Film.MotionPictureAssociation> mpa = List.copyOf(repository.getTotalAvailableMpa());
+        Film.Genre[] genresById = new Film.Genre[genres.stream().mapToInt(Film.Genre::getId).max().orElse(0) + 1];
+        Film.MotionPictureAssociation[] mpaById = new Film.MotionPictureAssociation[
+                mpa.stream().mapToInt(Film.MotionPictureAssociation::getId).max().orElse(0) + 1];
+
+        genres.forEach(genre -> genresById[genre.getId()] = genre);
+        mpa.forEach(rating -> mpaById[rating.getId()] = rating);
+
+        long version = snapshot == null ? 1 : snapshot.version + 1;
+
+        snapshot = new Snapshot(version, genres, genresById, mpa, mpaById);
+        log.info("Загружены справочники (версия " + version + "): жанров " + genres.size() + ", MPA " + mpa.size());
+    }
+
+    /**
+     * Перезагрузка справочников по расписанию.
+     */
+    @Scheduled(initialDelayString = "${filmorate.reference-data.refresh-interval-ms:300000}",
+            fixedDelayString = "${filmorate.reference-data.refresh-interval-ms:300000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * @return версия справочников, увеличивается при каждой перезагрузке.
+     */
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    /**
+     * @return все жанры в порядке возрастания id (неизменяемый список).
+     */
+    public List<Film.Genre> getGenres() {
+        return snapshot.genres;
+    }
+
+    /**
+     * Поиск жанра по id.
+     *
+     * @param id id жанра.
+     * @return жанр или null, если жанра с таким id нет.
+     */
+    @Nullable
+    public Film.Genre getGenre(int id) {
+        Film.Genre[] genresById = snapshot.genresById;
+
+        return id >= 0 && id < genresById.length ? genresById[id] : null;
+    }
+
+    /**
+     * @return все MPA в порядке возрастания id (неизменяемый список).
+     */
+    public List<Film.MotionPictureAssociation> getMpa() {
+        return snapshot.mpa;
+    }
+
+    /**
+     * Поиск MPA по id.
+     *
+     * @param id id MPA.
+     * @return MPA или null, если MPA с таким id нет.
+     */
+    @Nullable
+    public Film.MotionPictureAssociation getMpa(int id) {
+        Film.MotionPictureAssociation[] mpaById = snapshot.mpaById;
+
+        return id >= 0 && id < mpaById.length ? mpaById[id] : null;
+    }
+
+    /**
+     * Неизменяемый снимок справочников.
+     */
+    private static class Snapshot {
+        private final long version;
+        private final List<Film.Genre> genres;
+        private final Film.Genre[] genresById;
+        private final List<Film.MotionPictureAssociation> mpa;
+        private final Film.MotionPictureAssociation[] mpaById;
+
+        private Snapshot(long version, List<Film.Genre> genres, Film.Genre[] genresById,
+                         List<Film.MotionPictureAssociation> mpa, Film.MotionPictureAssociation[] mpaById) {
+            this.version = version;
+            this.genres = genres;
+            this.genresById = genresById;
+            this.mpa = mpa;
+            this.mpaById = mpaById;
+        }
+    }
+}
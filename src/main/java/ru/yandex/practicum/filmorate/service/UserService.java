@@ -5,28 +5,40 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.user.User;
 import ru.yandex.practicum.filmorate.repository.UserRepository;
 
 import javax.validation.constraints.NotNull;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserService {
-    @Qualifier("DbUsersRepository")
+    @Qualifier("CachingUsersRepository")
     @NotNull
     private final UserRepository repository;
     @NotNull
     private final ValidateService validateService;
+    @NotNull
+    private final LikesBitmapIndex likesIndex;
 
     public List<User> getAll() {
         return repository.getAll();
     }
 
+    public Page<User> getPage(Integer after, int limit) {
+        return Page.of(repository.getPage(after, limit + 1), limit, User::getId);
+    }
+
+    public void forEachUser(Consumer<? super User> action) {
+        repository.forEach(action);
+    }
+
     public void create(User user) {
         validateService.setNameAsLoginIfNameNull(user);
         repository.create(user);
@@ -62,16 +74,36 @@ public class UserService {
         return confirm ? repository.getConfirmFriends(id) : repository.getFriends(id);
     }
 
+    public Page<User> getFriendsPage(Integer id, boolean confirm, Integer after, int limit) {
+        validateService.isUserCreated(id);
+
+        List<User> friends = confirm
+                ? repository.getConfirmFriends(id, after, limit + 1)
+                : repository.getFriends(id, after, limit + 1);
+
+        return Page.of(friends, limit, User::getId);
+    }
+
     public List<User> getCommonFriends(int id, int otherId) {
         validateService.isUserCreated(id);
         validateService.isUserCreated(otherId);
+        return repository.getCommonFriends(id, otherId);
+    }
 
-        Set<User> commonFriends = new HashSet<>();
-
-        commonFriends.addAll(repository.getFriends(id));
-        commonFriends.retainAll(repository.getFriends(otherId));
+    public List<User> getFriendRecommendations(int id, int limit) {
+        validateService.isUserCreated(id);
+        return repository.getFriendRecommendations(id, limit);
+    }
 
-        return List.copyOf(commonFriends);
+    /**
+     * Получение пользователей, лайкнувших оба фильма.
+     */
+    public List<User> getCommonLikers(int filmId, int otherFilmId) {
+        validateService.isFilmCreated(filmId);
+        validateService.isFilmCreated(otherFilmId);
+        return repository.getByIds(Arrays.stream(likesIndex.getCommonLikers(filmId, otherFilmId))
+                .boxed()
+                .collect(Collectors.toList()));
     }
 
     public void deleteAllUsers() {
@@ -13,8 +13,6 @@ import ru.yandex.practicum.filmorate.repository.UserRepository;
 
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Класс предназначен для валидации сущностей и запросов к контроллерам.
@@ -23,10 +21,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 public class ValidateService {
-    @Qualifier("DbFilmsRepository")
+    @Qualifier("CachingFilmsRepository")
     private final FilmRepository filmRepository;
-    @Qualifier("DbUsersRepository")
+    @Qualifier("CachingUsersRepository")
     private final UserRepository userRepository;
+    private final ReferenceDataRegistry referenceData;
 
     /**
      * Проверка, что фильм уже создан.
@@ -34,7 +33,7 @@ public class ValidateService {
      * @param id идентификатор фильма.
      */
     public void isFilmCreated(Integer id) {
-        if (filmRepository.get(id).isEmpty()) {
+        if (!filmRepository.exists(id)) {
             throw new NotFoundException("Фильм с id = " + id + " не добавлен.");
         }
     }
@@ -45,7 +44,7 @@ public class ValidateService {
      * @param id идентификатор пользователя.
      */
     public void isUserCreated(Integer id) {
-        if (userRepository.get(id).isEmpty()) {
+        if (!userRepository.exists(id)) {
             throw new NotFoundException("Пользователь с id = " + id + " не добавлен.");
         }
     }
@@ -102,48 +101,41 @@ public class ValidateService {
             return;
         }
 
-        /*
-         * Хеш-таблица вида:
-         * Ключ - id известного жанра
-         * Значение - название известного жанра, соответствующего id
-         */
-        Map<Integer, String> totalGenres = filmRepository.getTotalAvailableGenres().stream()
-                .collect(Collectors.toMap(genre -> genre.getId(), genre -> genre.getName()));
-        /*
-           Список id жанров у пришедшего фильма
-         */
-        List<Integer> filmGenresIds = film.getGenres().stream()
-                .map(genre -> genre.getId())
-                .collect(Collectors.toList());
         LinkedHashSet<Film.Genre> genres = new LinkedHashSet<>();
 
-        for (Integer genreId : filmGenresIds) {
-            if (!totalGenres.keySet().contains(genreId))
-                throw new NotFoundException("Не добавлен жанр с id = " + genreId);
+        for (Film.Genre filmGenre : film.getGenres()) {
+            Film.Genre knownGenre = referenceData.getGenre(filmGenre.getId());
 
-            Film.Genre genre = new Film.Genre();
-
-            genre.setId(genreId);
-            genre.setName(totalGenres.get(genreId));
-            genres.add(genre);
+            if (knownGenre == null)
+                throw new NotFoundException("Не добавлен жанр с id = " + filmGenre.getId());
+            genres.add(knownGenre);
         }
         film.setGenres(genres);
     }
 
+    /**
+     * Проверка и установка жанров и MPA сразу для нескольких фильмов.
+     *
+     * @param films фильмы, в поля к которым установятся жанры и MPA.
+     */
+    public void checkAndSetGenresAndMpa(List<Film> films) {
+        for (Film film : films) {
+            checkAndSetGenres(film);
+            checkAndSetMpa(film);
+        }
+    }
+
     /**
      * Проверка, что MPA с таким id существует и установка в поле к фильму MPA.
      *
      * @param film фильм, в поле к которому устанавливается MPA.
      */
     public void checkAndSetMpa(Film film) {
-        Map<Integer, String> totalMpa = filmRepository.getTotalAvailableMpa().stream()
-                .collect(Collectors.toMap(mpa -> mpa.getId(), mpa -> mpa.getName()));
         int filmMpaId = film.getMpa().getId();
+        Film.MotionPictureAssociation knownMpa = referenceData.getMpa(filmMpaId);
 
-        if (!totalMpa.keySet().contains(filmMpaId))
+        if (knownMpa == null)
             throw new NotFoundException("Не найден MPA с " + "id = " + filmMpaId);
-        film.getMpa().setName(totalMpa.get(filmMpaId));
+        film.setMpa(knownMpa);
     }
-
-
 }
@@ -0,0 +1,183 @@
+package ru.yandex.practicum.filmorate.service.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.service.PopularFilmsIndex;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Полнотекстовый поиск фильмов по названию и описанию с помощью инвертированного индекса в памяти.
+ * Для каждого слова (см. {@link FilmTokenizer}) хранится список фильмов, в тексте которых оно встречается,
+ * с весом слова в фильме: каждое вхождение в название весит {@link #NAME_WEIGHT}, в описание - 1.
+ * Фильм находится, если в нем есть все слова запроса. Релевантность фильма - сумма весов слов запроса,
+ * умноженных на idf = ln(1 + N / df), где N - число фильмов, df - число фильмов со словом. Итоговая оценка
+ * учитывает популярность фильма: релевантность * (1 + likes-weight * ln(1 + число лайков)).
+ * Индекс строится при запуске приложения и обновляется при создании и изменении фильмов.
+ */
+@Component
+@Slf4j
+public class FilmSearchIndex {
+    /**
+     * Вес вхождения слова в название фильма.
+     */
+    private static final int NAME_WEIGHT = 3;
+
+    private final FilmRepository repository;
+    private final PopularFilmsIndex popularFilms;
+    private final double likesWeight;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Списки вхождений. Ключ - слово, значение - таблица: id фильма - вес слова в фильме.
+     */
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+    /**
+     * Слова фильмов, нужны для удаления фильма из списков вхождений при изменении. Ключ - id фильма.
+     */
+    private final Map<Integer, Set<String>> tokensByFilm = new HashMap<>();
+
+    public FilmSearchIndex(@Qualifier("DbFilmsRepository") FilmRepository repository,
+                           PopularFilmsIndex popularFilms,
+                           @Value("${filmorate.search.likes-weight:0.1}") double likesWeight) {
+        this.repository = repository;
+        this.popularFilms = popularFilms;
+        this.likesWeight = likesWeight;
+    }
+
+    /**
+     * Построение индекса по всем фильмам репозитория.
+     */
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            tokensByFilm.clear();
+            repository.forEach(this::indexUnlocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Построен поисковый индекс фильмов: фильмов " + tokensByFilm.size() + ", слов " + postings.size());
+    }
+
+    /**
+     * Добавление фильма в индекс или обновление его текста в индексе.
+     *
+     * @param film созданный или измененный фильм.
+     */
+    public void index(Film film) {
+        lock.writeLock().lock();
+        try {
+            indexUnlocked(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Поиск фильмов.
+     *
+     * @param query поисковый запрос.
+     * @param limit максимальное число фильмов.
+     * @return id найденных фильмов по убыванию оценки, при равенстве - по возрастанию id.
+     */
+    public List<Integer> search(String query, int limit) {
+        Set<String> tokens = new LinkedHashSet<>(FilmTokenizer.tokenize(query));
+
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            List<Map<Integer, Integer>> lists = tokens.stream()
+                    .map(token -> postings.getOrDefault(token, Map.of()))
+                    .sorted(Comparator.comparingInt(Map::size))
+                    .collect(Collectors.toList());
+            double[] idf = lists.stream()
+                    .mapToDouble(list -> Math.log(1 + (double) tokensByFilm.size() / Math.max(1, list.size())))
+                    .toArray();
+            PriorityQueue<double[]> best = new PriorityQueue<>(Math.max(1, Math.min(limit, lists.get(0).size())),
+                    (first, second) -> first[0] != second[0]
+                            ? Double.compare(first[0], second[0])
+                            : Double.compare(second[1], first[1]));
+
+            /*
+             кандидаты берутся из самого короткого списка, наличие в остальных проверяется по хеш-таблице
+             */
+            for (Map.Entry<Integer, Integer> posting : lists.get(0).entrySet()) {
+                int filmId = posting.getKey();
+                double relevance = posting.getValue() * idf[0];
+                boolean isMatched = true;
+
+                for (int i = 1; i < lists.size() && isMatched; i++) {
+                    Integer weight = lists.get(i).get(filmId);
+
+                    if (weight == null) {
+                        isMatched = false;
+                    } else {
+                        relevance += weight * idf[i];
+                    }
+                }
+                if (!isMatched) continue;
+
+                double score = relevance * (1 + likesWeight * Math.log1p(popularFilms.getLikes(filmId)));
+
+                best.add(new double[]{score, filmId});
+                if (best.size() > limit) best.poll();
+            }
+
+            Integer[] films = new Integer[best.size()];
+
+            for (int i = films.length - 1; i >= 0; i--) {
+                films[i] = (int) best.poll()[1];
+            }
+            return Arrays.asList(films);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Индексация фильма. Вызывается под блокировкой на запись.
+     */
+    private void indexUnlocked(Film film) {
+        removeUnlocked(film.getId());
+
+        Map<String, Integer> weights = new HashMap<>();
+
+        FilmTokenizer.tokenize(film.getName()).forEach(token -> weights.merge(token, NAME_WEIGHT, Integer::sum));
+        FilmTokenizer.tokenize(film.getDescription()).forEach(token -> weights.merge(token, 1, Integer::sum));
+        weights.forEach((token, weight) -> postings.computeIfAbsent(token, key -> new HashMap<>())
+                .put(film.getId(), weight));
+        tokensByFilm.put(film.getId(), weights.keySet());
+    }
+
+    /**
+     * Удаление фильма из списков вхождений. Вызывается под блокировкой на запись.
+     */
+    private void removeUnlocked(int filmId) {
+        Set<String> tokens = tokensByFilm.remove(filmId);
+
+        if (tokens == null) return;
+        for (String token : tokens) {
+            Map<Integer, Integer> list = postings.get(token);
+
+            list.remove(filmId);
+            if (list.isEmpty()) postings.remove(token);
+        }
+    }
+}
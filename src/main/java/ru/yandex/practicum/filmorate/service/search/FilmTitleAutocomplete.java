@@ -0,0 +1,417 @@
+package ru.yandex.practicum.filmorate.service.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.film.FilmSuggestion;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.service.PopularFilmsIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Подсказки названий фильмов по введенному началу (автодополнение).
+ * Названия нормализуются (нижний регистр, "ё" заменяется на "е", знаки препинания - на пробелы) и хранятся в
+ * префиксном дереве с начала названия и с начала каждого следующего слова, поэтому подсказка находится и по началу
+ * любого слова. В каждом узле дерева хранятся {@link #TOP_SIZE} самых популярных фильмов поддерева, поэтому ответ
+ * требует только спуска по дереву на длину введенного начала.
+ * Популярность фильма - число лайков на момент индексации; дерево строится при запуске приложения, обновляется
+ * при создании и переименовании фильмов и перестраивается по расписанию
+ * (filmorate.autocomplete.rebuild-interval-ms), чтобы учесть изменение популярности.
+ */
+@Component
+@Slf4j
+public class FilmTitleAutocomplete {
+    /**
+     * Число подсказок, хранимых в каждом узле дерева, и максимальное число подсказок в ответе.
+     */
+    public static final int TOP_SIZE = 20;
+    /**
+     * Максимальная длина ключа в дереве. Более длинные названия обрезаются.
+     */
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final int[] NO_FILMS = new int[0];
+
+    private final FilmRepository repository;
+    private final PopularFilmsIndex popularFilms;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildMonitor = new Object();
+    private Index index = new Index();
+    /**
+     * Фильмы, проиндексированные во время перестроения, или null, если перестроение не идет.
+     * Индексируются в новом дереве перед его публикацией.
+     */
+    private List<Film> indexedDuringRebuild;
+
+    public FilmTitleAutocomplete(@Qualifier("DbFilmsRepository") FilmRepository repository,
+                                 PopularFilmsIndex popularFilms) {
+        this.repository = repository;
+        this.popularFilms = popularFilms;
+    }
+
+    /**
+     * Построение дерева по всем фильмам репозитория. Должно выполняться после построения рейтинга популярных
+     * фильмов, иначе популярность всех фильмов будет нулевой до следующего перестроения.
+     * Новое дерево строится без блокировки: сначала добавляются ключи всех фильмов, затем лучшие фильмы узлов
+     * вычисляются один раз от листьев к корню. Под блокировкой в новом дереве индексируются фильмы, измененные
+     * за время построения, и дерево заменяет текущее.
+     */
+    public void rebuild() {
+        synchronized (rebuildMonitor) {
+            lock.writeLock().lock();
+            try {
+                indexedDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Index newIndex = new Index();
+            int[] count = new int[1];
+
+            try {
+                repository.forEach(film -> {
+                    newIndex.add(film, popularFilms.getLikes(film.getId()));
+                    count[0]++;
+                });
+                newIndex.computeTops();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    indexedDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (Film film : indexedDuringRebuild) {
+                    newIndex.index(film, popularFilms.getLikes(film.getId()));
+                }
+                indexedDuringRebuild = null;
+                index = newIndex;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Построено дерево подсказок названий фильмов: фильмов " + count[0]);
+        }
+    }
+
+    /**
+     * Перестроение дерева по расписанию.
+     */
+    @Scheduled(initialDelayString = "${filmorate.autocomplete.rebuild-interval-ms:600000}",
+            fixedDelayString = "${filmorate.autocomplete.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Добавление фильма в дерево или обновление его названия.
+     *
+     * @param film созданный или измененный фильм.
+     */
+    public void index(Film film) {
+        int score = popularFilms.getLikes(film.getId());
+
+        lock.writeLock().lock();
+        try {
+            index.index(film, score);
+            if (indexedDuringRebuild != null) indexedDuringRebuild.add(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Получение подсказок.
+     *
+     * @param prefix введенное начало названия или слова в названии.
+     * @param limit  максимальное число подсказок, не больше {@link #TOP_SIZE}.
+     * @return фильмы по убыванию популярности, при равенстве - по возрастанию id.
+     */
+    public List<FilmSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+
+        if (key.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            return index.suggest(key, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Нормализация названия или введенного начала.
+     */
+    static String normalize(String text) {
+        if (text == null) return "";
+
+        StringBuilder normalized = new StringBuilder(Math.min(text.length(), MAX_KEY_LENGTH));
+
+        for (int i = 0; i < text.length() && normalized.length() < MAX_KEY_LENGTH; i++) {
+            char symbol = Character.toLowerCase(text.charAt(i));
+
+            if (symbol == 'ё') symbol = 'е';
+            if (Character.isLetterOrDigit(symbol)) {
+                normalized.append(symbol);
+            } else if (normalized.length() > 0 && normalized.charAt(normalized.length() - 1) != ' ') {
+                normalized.append(' ');
+            }
+        }
+
+        int end = normalized.length();
+
+        while (end > 0 && normalized.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return normalized.substring(0, end);
+    }
+
+    /**
+     * Ключи названия: нормализованное название с начала и с начала каждого следующего слова.
+     */
+    private static List<String> keys(String name) {
+        String normalized = normalize(name);
+        List<String> keys = new ArrayList<>();
+
+        for (int i = 0; i < normalized.length(); i++) {
+            if (i == 0 || normalized.charAt(i - 1) == ' ') keys.add(normalized.substring(i));
+        }
+        return keys;
+    }
+
+    private static int[] append(int[] films, int film) {
+        int[] result = Arrays.copyOf(films, films.length + 1);
+
+        result[films.length] = film;
+        return result;
+    }
+
+    private static int[] removeOnce(int[] films, int film) {
+        for (int i = 0; i < films.length; i++) {
+            if (films[i] != film) continue;
+
+            int[] result = new int[films.length - 1];
+
+            System.arraycopy(films, 0, result, 0, i);
+            System.arraycopy(films, i + 1, result, i, films.length - i - 1);
+            return result;
+        }
+        return films;
+    }
+
+    /**
+     * Префиксное дерево с названиями и популярностью проиндексированных фильмов.
+     */
+    private static class Index {
+        private final Node root = new Node();
+        /**
+         * Проиндексированные названия фильмов. Ключ - id фильма.
+         */
+        private final Map<Integer, String> names = new HashMap<>();
+        /**
+         * Популярность фильмов на момент индексации. Ключ - id фильма.
+         */
+        private final Map<Integer, Integer> scores = new HashMap<>();
+
+        /**
+         * Добавление ключей фильма без пересчета лучших фильмов узлов. Используется при построении дерева,
+         * после добавления всех фильмов вызывается {@link #computeTops()}.
+         */
+        private void add(Film film, int score) {
+            names.put(film.getId(), film.getName());
+            scores.put(film.getId(), score);
+            for (String key : keys(film.getName())) {
+                Node node = root;
+
+                for (int i = 0; i < key.length(); i++) {
+                    Node child = node.child(key.charAt(i));
+
+                    node = child != null ? child : node.addChild(key.charAt(i));
+                }
+                node.films = append(node.films, film.getId());
+            }
+        }
+
+        /**
+         * Вычисление лучших фильмов всех узлов от листьев к корню.
+         */
+        private void computeTops() {
+            computeTops(root);
+        }
+
+        private void computeTops(Node node) {
+            for (Node child : node.children) {
+                computeTops(child);
+            }
+            node.top = selectTop(node);
+        }
+
+        private List<FilmSuggestion> suggest(String key, int limit) {
+            Node node = root;
+
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) return List.of();
+
+            List<FilmSuggestion> suggestions = new ArrayList<>(Math.min(limit, node.top.length));
+
+            for (int i = 0; i < node.top.length && suggestions.size() < limit; i++) {
+                suggestions.add(new FilmSuggestion(node.top[i], names.get(node.top[i])));
+            }
+            return suggestions;
+        }
+
+        /**
+         * Индексация фильма с пересчетом лучших фильмов узлов на пути ключей. Повторная индексация фильма
+         * заменяет его прежнее название.
+         */
+        private void index(Film film, int score) {
+            int filmId = film.getId();
+            String oldName = names.get(filmId);
+
+            if (oldName != null) {
+                for (String key : keys(oldName)) {
+                    update(key, filmId, false);
+                }
+            }
+            names.put(filmId, film.getName());
+            scores.put(filmId, score);
+            for (String key : keys(film.getName())) {
+                update(key, filmId, true);
+            }
+        }
+
+        /**
+         * Добавление или удаление фильма по ключу с пересчетом лучших фильмов узлов на пути от листа к корню.
+         */
+        private void update(String key, int filmId, boolean isAdded) {
+            Node[] path = new Node[key.length() + 1];
+
+            path[0] = root;
+            for (int i = 0; i < key.length(); i++) {
+                Node child = path[i].child(key.charAt(i));
+
+                if (child == null) {
+                    if (!isAdded) return;
+                    child = path[i].addChild(key.charAt(i));
+                }
+                path[i + 1] = child;
+            }
+
+            Node last = path[key.length()];
+
+            last.films = isAdded ? append(last.films, filmId) : removeOnce(last.films, filmId);
+            for (int i = key.length(); i >= 0; i--) {
+                path[i].top = selectTop(path[i]);
+            }
+        }
+
+        /**
+         * Выбор лучших фильмов узла из фильмов, ключи которых заканчиваются в узле, и лучших фильмов дочерних узлов.
+         */
+        private int[] selectTop(Node node) {
+            int[] top = new int[TOP_SIZE];
+            int size = 0;
+
+            size = mergeTop(top, size, node.films);
+            for (Node child : node.children) {
+                size = mergeTop(top, size, child.top);
+            }
+            return size == TOP_SIZE ? top : Arrays.copyOf(top, size);
+        }
+
+        /**
+         * Вставка фильмов в упорядоченный по популярности массив лучших фильмов без повторов.
+         *
+         * @return новый размер массива лучших фильмов.
+         */
+        private int mergeTop(int[] top, int size, int[] films) {
+            for (int film : films) {
+                boolean isPresent = false;
+
+                for (int i = 0; i < size && !isPresent; i++) {
+                    isPresent = top[i] == film;
+                }
+                if (isPresent) continue;
+
+                int position = size;
+
+                while (position > 0 && isBetter(film, top[position - 1])) {
+                    position--;
+                }
+                if (position == TOP_SIZE) continue;
+
+                int moved = Math.min(size, TOP_SIZE - 1) - position;
+
+                System.arraycopy(top, position, top, position + 1, moved);
+                top[position] = film;
+                size = Math.min(size + 1, TOP_SIZE);
+            }
+            return size;
+        }
+
+        private boolean isBetter(int film, int otherFilm) {
+            int score = scores.getOrDefault(film, 0);
+            int otherScore = scores.getOrDefault(otherFilm, 0);
+
+            return score != otherScore ? score > otherScore : film < otherFilm;
+        }
+    }
+
+    /**
+     * Узел префиксного дерева. Дочерние узлы хранятся в массивах, упорядоченных по символу.
+     */
+    private static class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        /**
+         * Фильмы, ключ которых заканчивается в этом узле. Фильм может встречаться несколько раз, если одно
+         * и то же слово повторяется в его названии.
+         */
+        private int[] films = NO_FILMS;
+        /**
+         * Лучшие фильмы поддерева по убыванию популярности.
+         */
+        private int[] top = NO_FILMS;
+
+        private Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node addChild(char key) {
+            int position = -Arrays.binarySearch(keys, key) - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            Node child = new Node();
+
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            newKeys[position] = key;
+            newChildren[position] = child;
+            System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+            System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+}
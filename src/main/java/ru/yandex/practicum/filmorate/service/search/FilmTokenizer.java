@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.service.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбиение текста фильмов и поисковых запросов на слова.
+ * Словом считается последовательность букв (в том числе кириллических) и цифр. Слова приводятся к нижнему регистру,
+ * буква "ё" заменяется на "е". Слова из одного символа отбрасываются.
+ */
+public final class FilmTokenizer {
+    /**
+     * Минимальная длина слова, попадающего в индекс.
+     */
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    private FilmTokenizer() {
+    }
+
+    /**
+     * Разбиение текста на слова.
+     *
+     * @param text текст, может быть null.
+     * @return слова в порядке следования в тексте, с повторами.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+
+        if (text == null) return tokens;
+
+        StringBuilder token = new StringBuilder();
+
+        for (int i = 0; i < text.length(); i++) {
+            char symbol = text.charAt(i);
+
+            if (Character.isLetterOrDigit(symbol)) {
+                token.append(normalize(symbol));
+            } else {
+                addToken(tokens, token);
+            }
+        }
+        addToken(tokens, token);
+        return tokens;
+    }
+
+    private static char normalize(char symbol) {
+        char lowerCase = Character.toLowerCase(symbol);
+
+        return lowerCase == 'ё' ? 'е' : lowerCase;
+    }
+
+    private static void addToken(List<String> tokens, StringBuilder token) {
+        if (token.length() >= MIN_TOKEN_LENGTH) tokens.add(token.toString());
+        token.setLength(0);
+    }
+}
@@ -1,4 +1,4 @@
-create table if not exists GENRES
+create table GENRES
 (
     GENRE_ID   IDENTITY          NOT NULL PRIMARY KEY,
     GENRE_NAME CHARACTER VARYING not null,
@@ -6,7 +6,7 @@ create table if not exists GENRES
         primary key (GENRE_ID)
 );
 
-create table if not exists MPA
+create table MPA
 (
     MPA_ID IDENTITY          NOT NULL PRIMARY KEY,
     MPA    CHARACTER VARYING not null,
@@ -14,7 +14,7 @@ create table if not exists MPA
         primary key (MPA_ID)
 );
 
-create table if not exists FILMS
+create table FILMS
 (
     FILM_ID      IDENTITY          NOT NULL PRIMARY KEY,
     NAME         CHARACTER VARYING not null,
@@ -29,7 +29,7 @@ create table if not exists FILMS
         foreign key (MPA_ID) references MPA
 );
 
-create table if not exists FILM_GENRES
+create table FILM_GENRES
 (
     FILM_ID  INTEGER not null,
     GENRE_ID INTEGER not null,
@@ -39,7 +39,7 @@ create table if not exists FILM_GENRES
         foreign key (GENRE_ID) references GENRES
 );
 
-create table if not exists USERS
+create table USERS
 (
     USER_ID  IDENTITY NOT NULL PRIMARY KEY,
     EMAIL    CHARACTER VARYING,
@@ -50,7 +50,7 @@ create table if not exists USERS
         primary key (USER_ID)
 );
 
-create table if not exists FRIENDS_REQUESTS
+create table FRIENDS_REQUESTS
 (
     USER_ID_FROM INTEGER not null,
     USER_ID_TO   INTEGER not null,
@@ -60,7 +60,7 @@ create table if not exists FRIENDS_REQUESTS
         foreign key (USER_ID_FROM) references USERS
 );
 
-create table if not exists LIKES
+create table LIKES
 (
     FILM_ID           INTEGER not null,
     WHO_LIKED_USER_ID INTEGER not null,
@@ -0,0 +1,12 @@
+/*
+ Денормализованный счетчик лайков фильма для выборки популярных фильмов по индексу
+ */
+
+alter table FILMS
+    add column if not exists LIKES_COUNT INTEGER default 0 not null;
+
+create index if not exists FILMS_LIKES_COUNT_IDX
+    on FILMS (LIKES_COUNT desc, FILM_ID);
+
+update FILMS
+set LIKES_COUNT = (select count(*) from LIKES where LIKES.FILM_ID = FILMS.FILM_ID);
@@ -0,0 +1,18 @@
+/*
+ Один пользователь может лайкнуть фильм только один раз
+ */
+
+delete
+from LIKES L1
+where exists(select 1
+             from LIKES L2
+             where L2.FILM_ID = L1.FILM_ID
+               and L2.WHO_LIKED_USER_ID = L1.WHO_LIKED_USER_ID
+               and L2._ROWID_ < L1._ROWID_);
+
+alter table LIKES
+    add constraint if not exists "LIKES_pk"
+        primary key (FILM_ID, WHO_LIKED_USER_ID);
+
+update FILMS
+set LIKES_COUNT = (select count(*) from LIKES where LIKES.FILM_ID = FILMS.FILM_ID);
@@ -0,0 +1,36 @@
+/*
+ Первичные ключи таблиц связей и индексы для поиска в обратном направлении
+ */
+
+delete
+from FRIENDS_REQUESTS R1
+where exists(select 1
+             from FRIENDS_REQUESTS R2
+             where R2.USER_ID_FROM = R1.USER_ID_FROM
+               and R2.USER_ID_TO = R1.USER_ID_TO
+               and R2._ROWID_ < R1._ROWID_);
+
+alter table FRIENDS_REQUESTS
+    add constraint if not exists "FRIENDS_REQUESTS_pk"
+        primary key (USER_ID_FROM, USER_ID_TO);
+
+create index if not exists FRIENDS_REQUESTS_USER_ID_TO_IDX
+    on FRIENDS_REQUESTS (USER_ID_TO, USER_ID_FROM);
+
+create index if not exists LIKES_WHO_LIKED_USER_ID_IDX
+    on LIKES (WHO_LIKED_USER_ID, FILM_ID);
+
+delete
+from FILM_GENRES G1
+where exists(select 1
+             from FILM_GENRES G2
+             where G2.FILM_ID = G1.FILM_ID
+               and G2.GENRE_ID = G1.GENRE_ID
+               and G2._ROWID_ < G1._ROWID_);
+
+alter table FILM_GENRES
+    add constraint if not exists "FILM_GENRES_pk"
+        primary key (FILM_ID, GENRE_ID);
+
+create index if not exists FILM_GENRES_GENRE_ID_IDX
+    on FILM_GENRES (GENRE_ID, FILM_ID);
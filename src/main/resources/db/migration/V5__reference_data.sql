@@ -0,0 +1,20 @@
+/*
+ Справочники возрастных рейтингов и жанров
+ */
+
+merge into MPA (MPA_ID, MPA)
+    key (MPA_ID)
+    values (1, 'G'),
+           (2, 'PG'),
+           (3, 'PG-13'),
+           (4, 'R'),
+           (5, 'NC-17');
+
+merge into GENRES (GENRE_ID, GENRE_NAME)
+    key (GENRE_ID)
+    values (1, 'Комедия'),
+           (2, 'Драма'),
+           (3, 'Мультфильм'),
+           (4, 'Триллер'),
+           (5, 'Документальный'),
+           (6, 'Боевик');
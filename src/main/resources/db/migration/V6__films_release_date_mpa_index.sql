@@ -0,0 +1,6 @@
+/*
+ Индекс для выбора популярных фильмов с фильтром по году выпуска и MPA
+ */
+
+create index if not exists FILMS_RELEASE_DATE_MPA_ID_IDX
+    on FILMS (RELEASE_DATE, MPA_ID);
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.ControllerTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.controller.BinaryFormatsConfiguration;
+import ru.yandex.practicum.filmorate.controller.FilmorateJsonModule;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.user.User;
+
+import java.io.IOException;
+import java.util.List;
+
+import static ru.yandex.practicum.filmorate.ControllerTest.SerializationBenchmarks.measure;
+
+/**
+ * Сравнение форматов ответа {@link BinaryFormatsConfiguration}: размер и пропускная способность сериализации
+ * списков фильмов и пользователей в JSON, Smile и CBOR. Запускается вручную методом main, в тестах не участвует.
+ * ObjectMapper строятся так же, как в приложении: из {@link Jackson2ObjectMapperBuilder} с {@link FilmorateJsonModule}.
+ * Замер пропускной способности описан в {@link SerializationBenchmarks}.
+ */
+public class BinaryFormatsBenchmark {
+    public static void main(String[] args) throws IOException {
+        List<Film> films = SerializationBenchmarks.createFilms();
+        List<User> users = SerializationBenchmarks.createUsers();
+
+        ObjectMapper json = builder().build();
+        ObjectMapper smile = builder().factory(new SmileFactory()).build();
+        ObjectMapper cbor = builder().factory(new CBORFactory()).build();
+
+        for (List<?> items : List.of(films, users)) {
+            String type = items.get(0).getClass().getSimpleName();
+
+            report(type, "JSON", json.writer(), items);
+            report(type, "Smile", smile.writer(), items);
+            report(type, "CBOR", cbor.writer(), items);
+        }
+    }
+
+    private static Jackson2ObjectMapperBuilder builder() {
+        return new Jackson2ObjectMapperBuilder().modules(new JavaTimeModule(), new FilmorateJsonModule());
+    }
+
+    private static void report(String type, String format, ObjectWriter writer, List<?> items) throws IOException {
+        int size = writer.writeValueAsBytes(items).length;
+
+        System.out.printf("%s, %s: %,d байт на %d сущностей (%.1f байт на сущность), %,.0f сущностей/с%n",
+                type, format, size, items.size(), (double) size / items.size(), measure(writer, items));
+    }
+}
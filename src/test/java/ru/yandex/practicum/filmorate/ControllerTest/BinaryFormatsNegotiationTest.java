@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.ControllerTest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.yandex.practicum.filmorate.controller.BinaryFormatsConfiguration;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Выбор формата ответа по заголовку Accept ({@link BinaryFormatsConfiguration}).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Sql(scripts = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+public class BinaryFormatsNegotiationTest {
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final String[] URIS = {"/films", "/users", "/films/popular"};
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void shouldReturnFilmsAndUsersInSmileAndCbor() throws Exception {
+        for (String uri : URIS) {
+            JsonNode json = request(get(uri), MediaType.APPLICATION_JSON, new JsonFactory());
+
+            assertTrue(json.isArray(), uri);
+            assertEquals(json, request(get(uri).accept(SMILE), SMILE, new SmileFactory()), uri);
+            assertEquals(json, request(get(uri).accept(CBOR), CBOR, new CBORFactory()), uri);
+        }
+        assertEquals("test film name", request(get("/films").accept(SMILE), SMILE, new SmileFactory())
+                .get(0).get("name").asText());
+        assertEquals("test login", request(get("/users").accept(CBOR), CBOR, new CBORFactory())
+                .get(0).get("login").asText());
+    }
+
+    @Test
+    public void shouldReturnJsonWithoutAcceptOrWithAnyAccept() throws Exception {
+        for (String uri : URIS) {
+            assertEquals(request(get(uri), MediaType.APPLICATION_JSON, new JsonFactory()),
+                    request(get(uri).accept(MediaType.ALL), MediaType.APPLICATION_JSON, new JsonFactory()), uri);
+        }
+    }
+
+    /**
+     * Выполнение запроса и чтение тела ответа в ожидаемом формате.
+     */
+    private JsonNode request(MockHttpServletRequestBuilder request, MediaType expectedType, JsonFactory format)
+            throws Exception {
+        MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+        MediaType contentType = MediaType.parseMediaType(result.getResponse().getContentType());
+
+        assertTrue(expectedType.isCompatibleWith(contentType), "Content-Type: " + contentType);
+        return decode(result.getResponse().getContentAsByteArray(), format);
+    }
+
+    private static JsonNode decode(byte[] body, JsonFactory format) throws IOException {
+        return new ObjectMapper(format).readTree(body);
+    }
+}
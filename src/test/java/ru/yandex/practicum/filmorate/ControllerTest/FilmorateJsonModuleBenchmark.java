@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.ControllerTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import ru.yandex.practicum.filmorate.controller.FilmorateJsonModule;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.user.User;
+
+import java.io.IOException;
+import java.util.List;
+
+import static ru.yandex.practicum.filmorate.ControllerTest.SerializationBenchmarks.measure;
+
+/**
+ * Сравнение пропускной способности сериализации фильмов и пользователей сериализатором по умолчанию
+ * и сериализаторами {@link FilmorateJsonModule}. Запускается вручную методом main, в тестах не участвует.
+ * Замер описан в {@link SerializationBenchmarks}.
+ */
+public class FilmorateJsonModuleBenchmark {
+    public static void main(String[] args) throws IOException {
+        ObjectMapper defaultMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ObjectMapper moduleMapper = defaultMapper.copy().registerModule(new FilmorateJsonModule());
+        List<Film> films = SerializationBenchmarks.createFilms();
+        List<User> users = SerializationBenchmarks.createUsers();
+
+        report("Film", measure(defaultMapper.writer(), films), measure(moduleMapper.writer(), films));
+        report("User", measure(defaultMapper.writer(), users), measure(moduleMapper.writer(), users));
+    }
+
+    private static void report(String type, double defaultThroughput, double moduleThroughput) {
+        System.out.printf("%s: по умолчанию %,.0f/с, FilmorateJsonModule %,.0f/с, ускорение %.2f%n",
+                type, defaultThroughput, moduleThroughput, moduleThroughput / defaultThroughput);
+    }
+}
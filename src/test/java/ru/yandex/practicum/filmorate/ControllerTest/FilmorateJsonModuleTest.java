@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.ControllerTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.controller.FilmorateJsonModule;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.user.User;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilmorateJsonModuleTest {
+    private final ObjectMapper defaultMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ObjectMapper mapper = defaultMapper.copy().registerModule(new FilmorateJsonModule());
+
+    @Test
+    public void shouldWriteFilmsLikeDefaultSerializer() throws Exception {
+        Film film = createFilm();
+        Film emptyFilm = new Film();
+
+        assertEquals(defaultMapper.writeValueAsString(film), mapper.writeValueAsString(film));
+        assertEquals(defaultMapper.writeValueAsString(emptyFilm), mapper.writeValueAsString(emptyFilm));
+        assertEquals(defaultMapper.writeValueAsString(List.of(film, emptyFilm)),
+                mapper.writeValueAsString(List.of(film, emptyFilm)));
+        assertEquals(defaultMapper.writeValueAsString(film.getMpa()), mapper.writeValueAsString(film.getMpa()));
+    }
+
+    @Test
+    public void shouldWriteUsersLikeDefaultSerializer() throws Exception {
+        User user = createUser();
+        User emptyUser = new User();
+        Page<User> page = Page.of(List.of(user, emptyUser), 1, User::getId);
+
+        assertEquals(defaultMapper.writeValueAsString(user), mapper.writeValueAsString(user));
+        assertEquals(defaultMapper.writeValueAsString(emptyUser), mapper.writeValueAsString(emptyUser));
+        assertEquals(defaultMapper.writeValueAsString(page), mapper.writeValueAsString(page));
+    }
+
+    @Test
+    public void shouldReadWrittenFilm() throws Exception {
+        Film film = createFilm();
+
+        assertEquals(film, mapper.readValue(mapper.writeValueAsString(film), Film.class));
+    }
+
+    static Film createFilm() {
+        Film film = new Film();
+
+        film.setId(1);
+        film.setName("Film \"name\"");
+        film.setDescription("Описание\nфильма");
+        film.setReleaseDate(LocalDate.of(2010, 5, 1));
+        film.setDuration(120);
+        film.setRate(4);
+        film.setMpa(Film.MotionPictureAssociation.of(3, "PG-13"));
+        film.setGenres(new LinkedHashSet<>(List.of(Film.Genre.of(1, "Комедия"), Film.Genre.of(2, "Драма"))));
+        return film;
+    }
+
+    static User createUser() {
+        User user = new User();
+
+        user.setId(1);
+        user.setEmail("user@mail.ru");
+        user.setLogin("login");
+        user.setName("Имя");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.ControllerTest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Year;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверка параметров эндпоинта /films/popular: недопустимые значения отклоняются с кодом 400 до обращения
+ * к репозиторию.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Sql(scripts = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+public class PopularFilmsParametersTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void shouldReturnPopularFilmsForValidYear() throws Exception {
+        mockMvc.perform(get("/films/popular").param("year", "1895")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/popular").param("year", String.valueOf(Year.MAX_VALUE - 1)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void shouldRejectYearOutOfRange() throws Exception {
+        for (String year : new String[]{"1894", "-1", String.valueOf(Year.MAX_VALUE), "2147483647"}) {
+            mockMvc.perform(get("/films/popular").param("year", year)).andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    public void shouldRejectCountOutOfRange() throws Exception {
+        mockMvc.perform(get("/films/popular").param("count", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/popular").param("count", "1001")).andExpect(status().isBadRequest());
+    }
+}
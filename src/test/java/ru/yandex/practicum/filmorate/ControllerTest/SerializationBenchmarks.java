@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.ControllerTest;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.user.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Общая часть ручных замеров сериализации ({@link FilmorateJsonModuleBenchmark}, {@link BinaryFormatsBenchmark}):
+ * тестовые данные и замер пропускной способности.
+ * Каждый замер сериализует список из {@link #BATCH_SIZE} сущностей в поток, отбрасывающий байты;
+ * результат - медиана сущностей в секунду по {@link #MEASUREMENTS} замерам после прогрева.
+ */
+final class SerializationBenchmarks {
+    static final int BATCH_SIZE = 1_000;
+    private static final int WARMUP_MEASUREMENTS = 20;
+    private static final int MEASUREMENTS = 30;
+    private static final long MEASUREMENT_NANOS = 200_000_000L;
+
+    private SerializationBenchmarks() {
+    }
+
+    /**
+     * @return {@link #BATCH_SIZE} фильмов с id от 1.
+     */
+    static List<Film> createFilms() {
+        List<Film> films = new ArrayList<>();
+
+        for (int i = 1; i <= BATCH_SIZE; i++) {
+            Film film = FilmorateJsonModuleTest.createFilm();
+
+            film.setId(i);
+            films.add(film);
+        }
+        return films;
+    }
+
+    /**
+     * @return {@link #BATCH_SIZE} пользователей с id от 1.
+     */
+    static List<User> createUsers() {
+        List<User> users = new ArrayList<>();
+
+        for (int i = 1; i <= BATCH_SIZE; i++) {
+            User user = FilmorateJsonModuleTest.createUser();
+
+            user.setId(i);
+            users.add(user);
+        }
+        return users;
+    }
+
+    /**
+     * @return медиана числа сериализованных сущностей в секунду.
+     */
+    static double measure(ObjectWriter writer, List<?> items) throws IOException {
+        OutputStream sink = new DiscardingOutputStream();
+        double[] results = new double[MEASUREMENTS];
+
+        for (int i = -WARMUP_MEASUREMENTS; i < MEASUREMENTS; i++) {
+            long batches = 0;
+            long start = System.nanoTime();
+            long elapsed;
+
+            do {
+                writer.writeValue(sink, items);
+                batches++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < MEASUREMENT_NANOS);
+            if (i >= 0) results[i] = batches * items.size() * 1e9 / elapsed;
+        }
+        Arrays.sort(results);
+        return results[MEASUREMENTS / 2];
+    }
+
+    /**
+     * Поток, отбрасывающий байты. В отличие от {@link OutputStream#nullOutputStream()} допускает запись
+     * после закрытия, которое выполняет ObjectWriter после каждой сериализации.
+     */
+    private static class DiscardingOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
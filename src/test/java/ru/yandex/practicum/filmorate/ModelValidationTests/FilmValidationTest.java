@@ -32,10 +32,7 @@ public class FilmValidationTest {
         film.setReleaseDate(LocalDate.of(2000, 5, 22));
         film.setDescription("Description");
 
-        Film.MotionPictureAssociation mpa = new Film.MotionPictureAssociation();
-        mpa.setId(1);
-
-        film.setMpa(mpa);
+        film.setMpa(Film.MotionPictureAssociation.of(1, null));
     }
 
     @Test
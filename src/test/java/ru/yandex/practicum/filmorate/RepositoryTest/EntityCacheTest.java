@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.RepositoryTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.EntityCache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityCacheTest {
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntryWhenWeightExceeded() {
+        EntityCache<String> cache = new EntityCache<>(2, 60_000, value -> 1);
+
+        cache.put(1, "first", cache.getGeneration());
+        cache.put(2, "second", cache.getGeneration());
+        assertEquals("first", cache.get(1));
+        cache.put(3, "third", cache.getGeneration());
+
+        assertEquals("first", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("third", cache.get(3));
+        assertEquals(1, cache.getStats().getEvictions());
+        assertEquals(3, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getMisses());
+    }
+
+    @Test
+    public void shouldNotPutValueLoadedBeforeInvalidation() {
+        EntityCache<String> cache = new EntityCache<>(10, 60_000, value -> 1);
+        long generation = cache.getGeneration();
+
+        cache.invalidate(1);
+        cache.put(1, "stale", generation);
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    public void shouldPutValueLoadedBeforeInvalidationOfAnotherEntity() {
+        EntityCache<String> cache = new EntityCache<>(10, 60_000, value -> 1);
+        long generation = cache.getGeneration();
+
+        cache.invalidate(2);
+        cache.put(1, "first", generation);
+        cache.put(2, "stale", generation);
+
+        assertEquals("first", cache.get(1));
+        assertNull(cache.get(2));
+    }
+
+    @Test
+    public void shouldPutValueLoadedAfterInvalidation() {
+        EntityCache<String> cache = new EntityCache<>(10, 60_000, value -> 1);
+
+        cache.invalidate(1);
+        cache.put(1, "fresh", cache.getGeneration());
+        assertEquals("fresh", cache.get(1));
+    }
+
+    @Test
+    public void shouldNotPutValueLoadedBeforeInvalidateAll() {
+        EntityCache<String> cache = new EntityCache<>(10, 60_000, value -> 1);
+        long generation = cache.getGeneration();
+
+        cache.invalidateAll();
+        cache.put(1, "stale", generation);
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    public void shouldNotPutValueLoadedBeforeForgottenInvalidation() {
+        EntityCache<String> cache = new EntityCache<>(10, 60_000, value -> 1);
+        long generation = cache.getGeneration();
+
+        cache.invalidate(1);
+        for (int id = 2; id <= 5000; id++) {
+            cache.invalidate(id);
+        }
+        cache.put(1, "stale", generation);
+        assertNull(cache.get(1));
+
+        cache.put(1, "fresh", cache.getGeneration());
+        assertEquals("fresh", cache.get(1));
+    }
+
+    @Test
+    public void shouldExpireEntries() {
+        EntityCache<String> cache = new EntityCache<>(10, 0, value -> 1);
+
+        cache.put(1, "value", cache.getGeneration());
+        assertNull(cache.get(1));
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    public void shouldCheckPresenceWithoutChangingHitsAndMisses() {
+        EntityCache<String> cache = new EntityCache<>(2, 60_000, value -> 1);
+
+        cache.put(1, "first", cache.getGeneration());
+        cache.put(2, "second", cache.getGeneration());
+
+        assertTrue(cache.containsKey(1));
+        assertFalse(cache.containsKey(3));
+        assertEquals(0, cache.getStats().getHits());
+        assertEquals(0, cache.getStats().getMisses());
+
+        cache.put(3, "third", cache.getGeneration());
+
+        assertTrue(cache.containsKey(1));
+        assertFalse(cache.containsKey(2));
+        assertEquals(0, cache.getStats().getHits());
+        assertEquals(0, cache.getStats().getMisses());
+    }
+
+    @Test
+    public void shouldNotContainExpiredEntries() {
+        EntityCache<String> cache = new EntityCache<>(10, 0, value -> 1);
+
+        cache.put(1, "value", cache.getGeneration());
+        assertFalse(cache.containsKey(1));
+        assertEquals(0, cache.getStats().getSize());
+        assertEquals(0, cache.getStats().getMisses());
+    }
+}
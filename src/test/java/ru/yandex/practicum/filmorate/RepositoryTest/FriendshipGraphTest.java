@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.RepositoryTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.user.graph.FriendshipGraph;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FriendshipGraphTest {
+    @Test
+    public void shouldReturnSortedNeighboursOfBuiltGraph() {
+        FriendshipGraph graph = new FriendshipGraph(new int[]{1, 1, 2, 3, 3}, new int[]{3, 2, 1, 1, 2});
+
+        assertArrayEquals(new int[]{2, 3}, graph.getOutgoing(1));
+        assertArrayEquals(new int[]{2, 3}, graph.getIncoming(1));
+        assertArrayEquals(new int[]{2, 3}, graph.getMutual(1));
+        assertArrayEquals(new int[]{2}, graph.getCommonOutgoing(1, 3));
+        assertArrayEquals(new int[0], graph.getOutgoing(9999));
+        assertEquals(5, graph.getEdgeCount());
+    }
+
+    @Test
+    public void shouldApplyChangesOverBuiltGraph() {
+        FriendshipGraph graph = new FriendshipGraph(new int[]{1, 1, 2}, new int[]{2, 4, 1});
+
+        assertTrue(graph.addEdge(1, 3));
+        assertFalse(graph.addEdge(1, 3));
+        assertTrue(graph.removeEdge(1, 2));
+        assertFalse(graph.removeEdge(1, 2));
+        assertTrue(graph.addEdge(5, 1));
+
+        assertArrayEquals(new int[]{3, 4}, graph.getOutgoing(1));
+        assertArrayEquals(new int[]{2, 5}, graph.getIncoming(1));
+        assertArrayEquals(new int[0], graph.getMutual(1));
+        assertTrue(graph.hasEdge(5, 1));
+        assertFalse(graph.hasEdge(1, 2));
+
+        graph.compact();
+
+        assertArrayEquals(new int[]{3, 4}, graph.getOutgoing(1));
+        assertArrayEquals(new int[]{2, 5}, graph.getIncoming(1));
+        assertEquals(4, graph.getEdgeCount());
+
+        graph.removeVertex(1);
+
+        assertEquals(0, graph.getEdgeCount());
+    }
+
+    @Test
+    public void shouldRecommendFriendsOfFriendsByMutualFriends() {
+        FriendshipGraph graph = new FriendshipGraph(new int[]{1, 1, 2, 2, 3, 3, 6, 2},
+                new int[]{2, 3, 4, 5, 4, 1, 1, 6});
+
+        assertArrayEquals(new int[]{4, 5}, graph.recommend(1, 10));
+        assertArrayEquals(new int[]{4}, graph.recommend(1, 1));
+    }
+
+    @Test
+    public void shouldMatchEdgeSetUnderRandomChanges() {
+        Random random = new Random(3);
+        FriendshipGraph graph = new FriendshipGraph();
+        Map<Integer, Set<Integer>> expected = new TreeMap<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            int from = random.nextInt(60) + 1;
+            int to = random.nextInt(60) + 1;
+            Set<Integer> outgoing = expected.computeIfAbsent(from, id -> new TreeSet<>());
+
+            if (random.nextInt(3) == 0) {
+                assertEquals(outgoing.remove(to), graph.removeEdge(from, to));
+            } else {
+                assertEquals(outgoing.add(to), graph.addEdge(from, to));
+            }
+            if (i % 5_000 == 0) graph.compact();
+        }
+
+        int edges = 0;
+
+        for (int id = 1; id <= 60; id++) {
+            Set<Integer> outgoing = expected.getOrDefault(id, Set.of());
+            Set<Integer> incoming = new TreeSet<>();
+
+            for (Map.Entry<Integer, Set<Integer>> entry : expected.entrySet()) {
+                if (entry.getValue().contains(id)) incoming.add(entry.getKey());
+            }
+            assertArrayEquals(outgoing.stream().mapToInt(Integer::intValue).toArray(), graph.getOutgoing(id));
+            assertArrayEquals(incoming.stream().mapToInt(Integer::intValue).toArray(), graph.getIncoming(id));
+            assertArrayEquals(expectedRecommendations(expected, id, 5), graph.recommend(id, 5));
+            edges += outgoing.size();
+        }
+        assertEquals(edges, graph.getEdgeCount());
+    }
+
+    /**
+     * Рекомендации, посчитанные перебором по определению.
+     */
+    private static int[] expectedRecommendations(Map<Integer, Set<Integer>> edges, int id, int limit) {
+        Set<Integer> friends = edges.getOrDefault(id, Set.of());
+        Map<Integer, Integer> counts = new HashMap<>();
+
+        for (int friend : friends) {
+            for (int candidate : edges.getOrDefault(friend, Set.of())) {
+                boolean isRequest = edges.getOrDefault(candidate, Set.of()).contains(id);
+
+                if (candidate != id && !friends.contains(candidate) && !isRequest) {
+                    counts.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        return counts.keySet().stream()
+                .sorted(Comparator.comparing((Integer candidate) -> -counts.get(candidate))
+                        .thenComparing(candidate -> candidate))
+                .limit(limit)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.RepositoryTest;
+
+import ru.yandex.practicum.filmorate.repository.collection.CopyOnWriteIntSet;
+import ru.yandex.practicum.filmorate.repository.film.in_memory.InMemoryFilmsRepository;
+
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Сравнение объема кучи, занимаемого лайками {@link InMemoryFilmsRepository}: {@link ConcurrentHashMap}
+ * с множествами {@link CopyOnWriteIntSet} против {@link HashMap} с {@link HashSet} из Integer.
+ * Для каждого числа фильмов ставится {@value #LIKES} лайков от случайных пользователей (id до {@value #USERS}),
+ * объем - разница занятой памяти после сборки мусора до и после заполнения.
+ * Запускается вручную методом main, в тестах не участвует. Результат зависит от JVM: для сравнения с числами
+ * в документации запускать с -XX:+UseCompressedOops (по умолчанию при куче до 32 Гб).
+ */
+public class InMemoryLikesMemoryBenchmark {
+    private static final int LIKES = 1_000_000;
+    private static final int USERS = 100_000;
+    private static final int[] FILMS = {1_000, 10_000, 100_000};
+
+    public static void main(String[] args) {
+        for (int films : FILMS) {
+            int[][] likes = createLikes(films);
+
+            long primitive = measure(() -> fillPrimitive(films, likes));
+            long boxed = measure(() -> fillBoxed(films, likes));
+
+            System.out.printf("%,d фильмов: ConcurrentHashMap<Integer, CopyOnWriteIntSet> %,.1f Мб "
+                            + "(%.1f байт на лайк), "
+                            + "HashMap<Integer, Set<Integer>> %,.1f Мб (%.1f байт на лайк)%n",
+                    films, primitive / 1e6, (double) primitive / LIKES, boxed / 1e6, (double) boxed / LIKES);
+        }
+    }
+
+    /**
+     * Лайки в виде пар {id фильма, id пользователя} без повторов, чтобы обе структуры хранили одно и то же.
+     */
+    private static int[][] createLikes(int films) {
+        Random random = new Random(films);
+        Set<Long> unique = new HashSet<>(LIKES * 2);
+        int[][] likes = new int[LIKES][];
+        int count = 0;
+
+        while (count < LIKES) {
+            int filmId = random.nextInt(films) + 1;
+            int userId = random.nextInt(USERS) + 1;
+            if (unique.add((long) filmId * USERS + userId)) {
+                likes[count++] = new int[]{filmId, userId};
+            }
+        }
+        return likes;
+    }
+
+    private static Map<Integer, CopyOnWriteIntSet> fillPrimitive(int films, int[][] likes) {
+        Map<Integer, CopyOnWriteIntSet> map = new ConcurrentHashMap<>();
+        for (int filmId = 1; filmId <= films; filmId++) {
+            map.put(filmId, new CopyOnWriteIntSet());
+        }
+        for (int[] like : likes) {
+            map.get(like[0]).add(like[1]);
+        }
+        return map;
+    }
+
+    private static Map<Integer, Set<Integer>> fillBoxed(int films, int[][] likes) {
+        Map<Integer, Set<Integer>> map = new HashMap<>();
+        for (int filmId = 1; filmId <= films; filmId++) {
+            map.put(filmId, new HashSet<>());
+        }
+        for (int[] like : likes) {
+            map.get(like[0]).add(like[1]);
+        }
+        return map;
+    }
+
+    /**
+     * Объем памяти, занятый результатом построения, в байтах.
+     */
+    private static long measure(Supplier<?> builder) {
+        long before = usedMemory();
+        Object result = builder.get();
+        long after = usedMemory();
+
+        Reference.reachabilityFence(result);
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.RepositoryTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.user.User;
+import ru.yandex.practicum.filmorate.repository.film.in_memory.InMemoryFilmsRepository;
+import ru.yandex.practicum.filmorate.repository.user.in_memory.InMemoryUsersRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryRepositoryConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int ENTITIES_PER_THREAD = 500;
+
+    @Test
+    public void shouldCreateUsersConcurrentlyWithUniqueIds() throws InterruptedException {
+        InMemoryUsersRepository repository = new InMemoryUsersRepository();
+
+        runConcurrently(thread -> {
+            User user = new User();
+
+            user.setLogin("user" + thread);
+            repository.create(user);
+        });
+
+        List<Integer> ids = repository.getAll().stream().map(User::getId).collect(Collectors.toList());
+
+        assertEquals(IntStream.rangeClosed(1, THREADS * ENTITIES_PER_THREAD).boxed().collect(Collectors.toList()),
+                ids);
+        assertEquals(List.of(11, 12), repository.getPage(10, 2).stream()
+                .map(User::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void shouldCountLikesAddedConcurrently() throws InterruptedException {
+        InMemoryFilmsRepository repository = new InMemoryFilmsRepository();
+
+        repository.createAll(List.of(new Film(), new Film()));
+        runConcurrently(thread -> {
+            repository.addLike(2, thread);
+            if (thread % 2 == 0) repository.addLike(1, thread);
+        });
+
+        assertEquals(THREADS * ENTITIES_PER_THREAD, repository.getLikesCounts().get(2));
+        assertEquals(THREADS * ENTITIES_PER_THREAD / 2, repository.getLikesCounts().get(1));
+        assertEquals(List.of(2, 1), repository.getPopularsFilms(10).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void shouldKeepLikesAddedAndDeletedConcurrently() throws InterruptedException {
+        InMemoryFilmsRepository repository = new InMemoryFilmsRepository();
+
+        repository.create(new Film());
+        runConcurrently(thread -> {
+            repository.addLike(1, thread);
+            if (thread % 2 == 1) repository.deleteLike(1, thread);
+        });
+
+        List<Integer> likedUsers = new ArrayList<>();
+
+        repository.forEachLike((userId, filmId) -> likedUsers.add(userId));
+        assertEquals(IntStream.range(0, THREADS * ENTITIES_PER_THREAD).filter(user -> user % 2 == 0).boxed()
+                .collect(Collectors.toList()), likedUsers);
+    }
+
+    @Test
+    public void shouldRejectLikeOfMissingFilm() {
+        InMemoryFilmsRepository repository = new InMemoryFilmsRepository();
+
+        assertThrows(NotFoundException.class, () -> repository.addLike(1, 1));
+        assertThrows(NotFoundException.class, () -> repository.deleteLike(1, 1));
+        assertEquals(Optional.empty(), repository.get(1));
+    }
+
+    /**
+     * Выполнение действия в нескольких потоках. Действие получает уникальный номер вызова.
+     */
+    private static void runConcurrently(IntConsumer action) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            int from = thread * ENTITIES_PER_THREAD;
+
+            executor.execute(() -> {
+                for (int i = from; i < from + ENTITIES_PER_THREAD; i++) {
+                    action.accept(i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+}
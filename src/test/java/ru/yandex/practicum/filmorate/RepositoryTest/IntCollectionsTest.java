@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.RepositoryTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.SortedSnapshot;
+import ru.yandex.practicum.filmorate.repository.collection.CopyOnWriteIntSet;
+import ru.yandex.practicum.filmorate.repository.collection.IntHashSet;
+import ru.yandex.practicum.filmorate.repository.collection.IntObjectHashMap;
+import ru.yandex.practicum.filmorate.repository.collection.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntCollectionsTest {
+    @Test
+    public void intHashSetShouldBehaveLikeHashSet() {
+        Random random = new Random(42);
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(2_000) - 100;
+
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (int value = -100; value < 1_900; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+
+        int[] values = set.toArray();
+
+        Arrays.sort(values);
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).sorted().toArray(), values);
+    }
+
+    @Test
+    public void copyOnWriteIntSetShouldBehaveLikeTreeSet() {
+        Random random = new Random(11);
+        CopyOnWriteIntSet set = new CopyOnWriteIntSet();
+        Set<Integer> expected = new TreeSet<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(1_000) - 100;
+
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (int value = -100; value < 900; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray());
+    }
+
+    @Test
+    public void intObjectHashMapShouldBehaveLikeHashMap() {
+        Random random = new Random(7);
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) - 100;
+
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        Map<Integer, String> actual = new HashMap<>();
+
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void sortedSnapshotShouldMergeAndReplaceById() {
+        SortedSnapshot<int[]> snapshot = new SortedSnapshot<>(entity -> entity[0]);
+
+        snapshot.putAll(List.of(new int[]{5, 0}, new int[]{1, 0}, new int[]{3, 0}));
+        snapshot.putAll(List.of(new int[]{4, 0}, new int[]{3, 1}, new int[]{3, 2}, new int[]{7, 0}));
+        snapshot.remove(1);
+
+        assertArrayEquals(new int[]{3, 4, 5, 7}, snapshot.getIds());
+        assertEquals(2, snapshot.get(3)[1]);
+        assertNull(snapshot.get(1));
+        assertEquals(List.of(5, 7), snapshot.getPage(4, 10).stream()
+                .map(entity -> entity[0])
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void roaringBitmapShouldBehaveLikeSortedSet() {
+        Random random = new Random(11);
+        RoaringBitmap bitmap = new RoaringBitmap();
+        RoaringBitmap other = new RoaringBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        TreeSet<Integer> otherExpected = new TreeSet<>();
+
+        /*
+         в первом блоке значения плотные (блок становится битовой картой), в остальных - разреженные
+         */
+        for (int i = 0; i < 200_000; i++) {
+            int value = random.nextBoolean() ? random.nextInt(1 << 16) : random.nextInt(1 << 22);
+
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(value), bitmap.remove(value));
+            } else {
+                assertEquals(expected.add(value), bitmap.add(value));
+            }
+            if (random.nextInt(3) == 0) {
+                otherExpected.add(value);
+                other.add(value);
+            }
+        }
+        assertEquals(expected.size(), bitmap.getCardinality());
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), bitmap.toArray());
+
+        expected.retainAll(otherExpected);
+
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), bitmap.and(other));
+        assertEquals(expected.size(), bitmap.andCardinality(other));
+        assertEquals(expected.size(), other.andCardinality(bitmap));
+    }
+}
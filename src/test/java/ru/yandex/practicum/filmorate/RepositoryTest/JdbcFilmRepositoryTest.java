@@ -5,24 +5,42 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
 import ru.yandex.practicum.filmorate.repository.FilmRepository;
 import ru.yandex.practicum.filmorate.repository.film.dao.DbFilmsRepository;
+import ru.yandex.practicum.filmorate.service.ReferenceDataRegistry;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @JdbcTest
-@Import(DbFilmsRepository.class)
+@Import({DbFilmsRepository.class, ReferenceDataRegistry.class})
 @Sql(scripts = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 public class JdbcFilmRepositoryTest {
     @Autowired
     @Qualifier("DbFilmsRepository")
     private FilmRepository filmRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ReferenceDataRegistry referenceData;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @Test
     public void shouldFindTestFilmById() {
@@ -44,6 +62,20 @@ public class JdbcFilmRepositoryTest {
         assertEquals(Optional.empty(), filmRepository.get(9999));
     }
 
+    @Test
+    public void shouldReturnAllFilmsIds() {
+        Film film = new Film();
+
+        film.setName("test2");
+        film.setDescription("test descr2");
+        film.setDuration(15);
+        film.setReleaseDate(LocalDate.of(2010, 5, 1));
+        film.setMpa(Film.MotionPictureAssociation.of(2, null));
+        filmRepository.create(film);
+
+        assertEquals(List.of(1, 2), filmRepository.getAllIds());
+    }
+
     @Test
     public void shouldCreateFilm() {
         Film film = new Film();
@@ -54,10 +86,7 @@ public class JdbcFilmRepositoryTest {
         film.setDuration(15);
         film.setReleaseDate(LocalDate.of(2010, 5, 1));
 
-        Film.MotionPictureAssociation mpa = new Film.MotionPictureAssociation();
-
-        mpa.setId(2);
-        film.setMpa(mpa);
+        film.setMpa(Film.MotionPictureAssociation.of(2, null));
         filmRepository.create(film);
 
         Film createdFilm = filmRepository.get(2).get();
@@ -90,10 +119,7 @@ public class JdbcFilmRepositoryTest {
         film.setDuration(15);
         film.setReleaseDate(LocalDate.of(2010, 5, 1));
 
-        Film.MotionPictureAssociation mpa = new Film.MotionPictureAssociation();
-
-        mpa.setId(2);
-        film.setMpa(mpa);
+        film.setMpa(Film.MotionPictureAssociation.of(2, null));
         filmRepository.create(film);
 
         assertEquals(List.of(filmRepository.get(1).get(), filmRepository.get(2).get()), filmRepository.getAll());
@@ -149,9 +175,7 @@ public class JdbcFilmRepositoryTest {
         badFilm.setDuration(15);
         badFilm.setReleaseDate(LocalDate.of(2010, 5, 1));
 
-        Film.MotionPictureAssociation mpa = new Film.MotionPictureAssociation();
-        mpa.setId(1);
-        badFilm.setMpa(mpa);
+        badFilm.setMpa(Film.MotionPictureAssociation.of(1, null));
 
         filmRepository.create(badFilm);
         filmRepository.addLike(1, 1);
@@ -165,4 +189,252 @@ public class JdbcFilmRepositoryTest {
         filmRepository.addLike(2, 1);
         assertEquals(List.of(filmRepository.get(2).get()), filmRepository.getPopularsFilms(1));
     }
+
+    @Test
+    public void shouldReturnFilmsWithGenresOnEveryReadPath() {
+        Film film = filmRepository.get(1).get();
+        Film.Genre comedy = filmRepository.getGenreById(1).get();
+        Film.Genre drama = filmRepository.getGenreById(2).get();
+
+        film.setGenres(new LinkedHashSet<>(List.of(comedy, drama)));
+        filmRepository.update(film);
+        filmRepository.addLike(1, 1);
+
+        assertEquals(film.getGenres(), filmRepository.get(1).get().getGenres());
+        assertEquals(film.getGenres(), filmRepository.getAll().get(0).getGenres());
+        assertEquals(film.getGenres(), filmRepository.getPopularsFilms(1).get(0).getGenres());
+    }
+
+    @Test
+    public void shouldReturnGenresOrderedByIdOnEveryReadPath() {
+        Film film = filmRepository.get(1).get();
+
+        film.setGenres(new LinkedHashSet<>(List.of(filmRepository.getGenreById(6).get(),
+                filmRepository.getGenreById(2).get(), filmRepository.getGenreById(4).get())));
+        filmRepository.update(film);
+
+        List<Film> streamed = new ArrayList<>();
+
+        filmRepository.forEach(streamed::add);
+        assertEquals(List.of(2, 4, 6), genreIds(filmRepository.get(1).get()));
+        assertEquals(List.of(2, 4, 6), genreIds(filmRepository.getAll().get(0)));
+        assertEquals(List.of(2, 4, 6), genreIds(streamed.get(0)));
+    }
+
+    @Test
+    public void shouldShareGenreAndMpaInstancesBetweenReads() {
+        Film film = filmRepository.get(1).get();
+        Film.Genre comedy = filmRepository.getGenreById(1).get();
+
+        film.setGenres(new LinkedHashSet<>(List.of(comedy)));
+        filmRepository.update(film);
+
+        assertSame(comedy, filmRepository.getGenreById(1).get());
+        assertSame(comedy, filmRepository.get(1).get().getGenres().iterator().next());
+        assertSame(comedy, filmRepository.getAll().get(0).getGenres().iterator().next());
+        assertSame(filmRepository.getMpaById(film.getMpa().getId()).get(), filmRepository.get(1).get().getMpa());
+    }
+
+    @Test
+    public void shouldKeepCanonicalNamesAfterSavingClientInstances() {
+        Film film = new Film();
+
+        // жанр и MPA из тела запроса клиента с другими названиями
+        film.setName("client film");
+        film.setDescription("client description");
+        film.setDuration(100);
+        film.setReleaseDate(LocalDate.of(2001, 1, 1));
+        film.setMpa(Film.MotionPictureAssociation.of(1, "Не G"));
+        film.setGenres(new LinkedHashSet<>(List.of(Film.Genre.of(1, "Не комедия"))));
+        filmRepository.create(film);
+        film.setGenres(new LinkedHashSet<>(List.of(Film.Genre.of(1, "Снова не комедия"), Film.Genre.of(2, null))));
+        film.setMpa(Film.MotionPictureAssociation.of(1, null));
+        filmRepository.update(film);
+
+        Film saved = filmRepository.get(film.getId()).get();
+
+        assertEquals(List.of("Комедия", "Драма"), saved.getGenres().stream()
+                .map(Film.Genre::getName)
+                .collect(Collectors.toList()));
+        assertEquals("G", saved.getMpa().getName());
+        assertEquals("Комедия", filmRepository.getGenreById(1).get().getName());
+        assertEquals("Комедия", referenceData.getGenre(1).getName());
+        assertSame(referenceData.getGenre(1), filmRepository.getGenreById(1).get());
+        assertSame(referenceData.getGenre(1), saved.getGenres().iterator().next());
+        assertSame(referenceData.getMpa(1), saved.getMpa());
+    }
+
+    @Test
+    public void shouldRecountLikesFromLikesTable() {
+        shouldAddUserLike();
+        jdbcTemplate.update("insert into LIKES(FILM_ID, WHO_LIKED_USER_ID) values (2, 1)");
+        jdbcTemplate.update("update FILMS set LIKES_COUNT = 0 where FILM_ID = 1");
+
+        assertEquals(2, filmRepository.recountLikes());
+        assertEquals(List.of(filmRepository.get(1).get(), filmRepository.get(2).get()),
+                filmRepository.getPopularsFilms(2));
+        assertEquals(0, filmRepository.recountLikes());
+    }
+
+    @Test
+    public void shouldAddAndDeleteLikeIdempotently() {
+        assertTrue(filmRepository.addLike(1, 1));
+        assertFalse(filmRepository.addLike(1, 1));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from LIKES", Integer.class));
+        assertEquals(0, filmRepository.recountLikes());
+
+        assertTrue(filmRepository.deleteLike(1, 1));
+        assertFalse(filmRepository.deleteLike(1, 1));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from LIKES", Integer.class));
+        assertEquals(0, filmRepository.recountLikes());
+    }
+
+    @Test
+    public void shouldReturnFilmsPageAfterCursor() {
+        shouldCreateFilm();
+
+        assertEquals(List.of(filmRepository.get(1).get()), filmRepository.getPage(null, 1));
+        assertEquals(List.of(filmRepository.get(2).get()), filmRepository.getPage(1, 1));
+        assertEquals(List.of(), filmRepository.getPage(2, 1));
+    }
+
+    @Test
+    public void shouldStreamAllFilmsWithGenres() {
+        shouldCreateFilm();
+        shouldReturnFilmsWithGenresOnEveryReadPath();
+
+        List<Film> streamed = new ArrayList<>();
+
+        filmRepository.forEach(streamed::add);
+        assertEquals(filmRepository.getAll(), streamed);
+    }
+
+    @Test
+    public void shouldCreateFilmsInBatch() {
+        List<Film> films = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            Film film = new Film();
+
+            film.setName("batch film " + i);
+            film.setDescription("batch film description " + i);
+            film.setRate(i);
+            film.setDuration(90 + i);
+            film.setReleaseDate(LocalDate.of(2010, 5, 1 + i));
+
+            film.setMpa(Film.MotionPictureAssociation.of(1 + i, null));
+            film.setGenres(new LinkedHashSet<>(List.of(filmRepository.getGenreById(1 + i).get())));
+            films.add(film);
+        }
+        filmRepository.createAll(films);
+
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            Film createdFilm = filmRepository.get(2 + i).get();
+
+            assertEquals(2 + i, film.getId());
+            assertEquals(film.getName(), createdFilm.getName());
+            assertEquals(film.getMpa().getId(), createdFilm.getMpa().getId());
+            assertEquals(film.getGenres(), createdFilm.getGenres());
+        }
+    }
+
+    @Test
+    public void shouldApplyLikesInBatch() {
+        shouldCreateFilm();
+        filmRepository.addLike(2, 1);
+
+        boolean[] isChanged = filmRepository.applyLikes(List.of(
+                new LikeChange(1, 1, true),
+                new LikeChange(2, 1, false),
+                new LikeChange(2, 1, false)));
+
+        assertArrayEquals(new boolean[]{true, true, false}, isChanged);
+        assertEquals(0, filmRepository.recountLikes());
+        assertEquals(List.of(filmRepository.get(1).get()), filmRepository.getPopularsFilms(1));
+    }
+
+    @Test
+    public void shouldCheckFilmExists() {
+        assertTrue(filmRepository.exists(1));
+        assertTrue(filmRepository.exists(1));
+        assertFalse(filmRepository.exists(9999));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    public void shouldNotQueryKnownFilm() {
+        assertTrue(filmRepository.exists(1));
+        jdbcTemplate.update("delete from FILMS where FILM_ID = 1");
+        // id уже известен: запрос к БД не выполняется, поэтому удаление в обход репозитория не видно
+        assertTrue(filmRepository.exists(1));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    public void shouldNotKnowFilmCreatedInRolledBackTransaction() {
+        Film film = new Film();
+
+        film.setName("test2");
+        film.setDescription("test descr2");
+        film.setDuration(15);
+        film.setReleaseDate(LocalDate.of(2010, 5, 1));
+        film.setMpa(Film.MotionPictureAssociation.of(2, null));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            filmRepository.create(film);
+            status.setRollbackOnly();
+        });
+        assertFalse(filmRepository.exists(film.getId()));
+    }
+
+    @Test
+    public void shouldReturnFilmsByIdsInGivenOrder() {
+        shouldCreateFilm();
+
+        assertEquals(List.of(filmRepository.get(2).get(), filmRepository.get(1).get()),
+                filmRepository.getByIds(List.of(2, 9999, 1)));
+        assertEquals(List.of(), filmRepository.getByIds(List.of()));
+    }
+
+    @Test
+    public void shouldReturnLikesCountsOfAllFilms() {
+        shouldCreateFilm();
+        filmRepository.addLike(2, 1);
+
+        assertEquals(Map.of(1, 0, 2, 1), filmRepository.getLikesCounts());
+    }
+
+    @Test
+    public void shouldReturnPopularFilmsFilteredByGenreMpaAndYear() {
+        shouldCreateFilmsInBatch();
+        filmRepository.addLike(3, 1);
+
+        Film film2 = filmRepository.get(2).get();
+        Film film3 = filmRepository.get(3).get();
+
+        assertEquals(List.of(film3, filmRepository.get(1).get(), film2, filmRepository.get(4).get()),
+                filmRepository.getPopularsFilms(10, null, null, null));
+        assertEquals(List.of(film3), filmRepository.getPopularsFilms(10, 2, null, null));
+        assertEquals(List.of(film2), filmRepository.getPopularsFilms(10, null, 1, 2010));
+        assertEquals(List.of(film3, film2), filmRepository.getPopularsFilms(2, null, null, 2010));
+        assertEquals(List.of(), filmRepository.getPopularsFilms(10, 1, 2, 2010));
+    }
+
+    @Test
+    public void shouldIterateLikesOrderedByUser() {
+        shouldCreateFilm();
+        filmRepository.addLike(2, 1);
+        filmRepository.addLike(1, 1);
+
+        List<List<Integer>> likes = new ArrayList<>();
+
+        filmRepository.forEachLike((userId, filmId) -> likes.add(List.of(userId, filmId)));
+        assertEquals(List.of(List.of(1, 1), List.of(1, 2)), likes);
+    }
+
+    private static List<Integer> genreIds(Film film) {
+        return film.getGenres().stream().map(Film.Genre::getId).collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.RepositoryTest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.user.User;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+import ru.yandex.practicum.filmorate.repository.user.dao.DbUsersRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Поиск друзей по графу заявок в памяти. Тесты выполняются без общей транзакции теста, чтобы изменения
+ * фиксировались и граф обновлялся после фиксации, как в приложении.
+ */
+@JdbcTest(properties = "filmorate.repository.friendship-graph.enabled=true")
+@Import(DbUsersRepository.class)
+@Sql(scripts = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class JdbcUserRepositoryFriendshipGraphTest {
+    @Autowired
+    @Qualifier("DbUsersRepository")
+    private UserRepository userRepository;
+    @Autowired
+    private DbUsersRepository dbUsersRepository;
+    @Autowired
+    private NamedParameterJdbcOperations jdbcOperations;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void shouldAddAndDeleteFriendsInGraph() {
+        User friend = createUser("friend");
+
+        assertEquals(List.of(), userRepository.getFriends(1));
+        userRepository.addToFriends(1, friend.getId());
+        assertEquals(List.of(friend), userRepository.getFriends(1));
+        assertEquals(List.of(), userRepository.getConfirmFriends(1));
+        userRepository.addToFriends(friend.getId(), 1);
+        assertEquals(List.of(friend), userRepository.getConfirmFriends(1));
+        userRepository.deleteFromFriends(1, friend.getId());
+        assertEquals(List.of(), userRepository.getFriends(1));
+        assertEquals(List.of(), userRepository.getConfirmFriends(friend.getId()));
+    }
+
+    @Test
+    public void shouldIgnoreRepeatedFriendRequestInGraph() {
+        User friend = createUser("friend");
+
+        userRepository.addToFriends(1, friend.getId());
+        userRepository.addToFriends(1, friend.getId());
+        assertEquals(List.of(friend), userRepository.getFriends(1));
+
+        userRepository.deleteFromFriends(1, friend.getId());
+        assertEquals(List.of(), userRepository.getFriends(1));
+    }
+
+    @Test
+    public void shouldNotAddFriendToGraphWhenTransactionRolledBack() {
+        User friend = createUser("friend");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userRepository.addToFriends(1, friend.getId());
+            status.setRollbackOnly();
+        });
+        assertEquals(List.of(), userRepository.getFriends(1));
+    }
+
+    @Test
+    public void shouldAddFriendToGraphOnlyAfterCommit() {
+        User friend = createUser("friend");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userRepository.addToFriends(1, friend.getId());
+            // до фиксации граф не изменен
+            assertEquals(List.of(), userRepository.getFriends(1));
+        });
+        assertEquals(List.of(friend), userRepository.getFriends(1));
+    }
+
+    @Test
+    public void shouldLoadGraphAtStartup() {
+        User friend = createUser("friend");
+
+        jdbcOperations.update("insert into FRIENDS_REQUESTS (USER_ID_FROM, USER_ID_TO) values (:from, :to)",
+                Map.of("from", 1, "to", friend.getId()));
+        dbUsersRepository.loadFriendsGraph();
+        // граф загружен при запуске, заявка, добавленная в обход репозитория, в нем не видна
+        assertEquals(List.of(), userRepository.getFriends(1));
+    }
+
+    @Test
+    public void shouldReloadGraphFromFriendsRequestsAfterDeleteAll() {
+        userRepository.deleteAll();
+
+        User user = createUser("user");
+        User friend = createUser("friend");
+
+        jdbcOperations.update("insert into FRIENDS_REQUESTS (USER_ID_FROM, USER_ID_TO) values (:from, :to)",
+                Map.of("from", user.getId(), "to", friend.getId()));
+        assertEquals(List.of(friend), userRepository.getFriends(user.getId()));
+        assertEquals(List.of(), userRepository.getFriends(friend.getId()));
+    }
+
+    private User createUser(String name) {
+        User user = new User();
+
+        user.setName(name + " name");
+        user.setEmail(name + "@" + name + ".ru");
+        user.setBirthday(LocalDate.of(2000, 2, 12));
+        user.setLogin(name + " login");
+        userRepository.create(user);
+        return user;
+    }
+}
@@ -5,7 +5,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.model.user.User;
 import ru.yandex.practicum.filmorate.repository.UserRepository;
 import ru.yandex.practicum.filmorate.repository.user.dao.DbUsersRepository;
@@ -24,6 +30,10 @@ public class JdbcUserRepositoryTest {
     @Autowired
     @Qualifier("DbUsersRepository")
     private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @Test
     public void shouldFindTestUserById() {
@@ -120,6 +130,25 @@ public class JdbcUserRepositoryTest {
         assertEquals(List.of(1, 2), userRepository.getAllIds());
     }
 
+    @Test
+    public void shouldIgnoreRepeatedFriendRequest() {
+        User friend = new User();
+
+        friend.setName("friend name");
+        friend.setEmail("friend@friend.ru");
+        friend.setBirthday(LocalDate.of(2000, 2, 12));
+        friend.setLogin("friend login");
+        userRepository.create(friend);
+        userRepository.addToFriends(1, friend.getId());
+        userRepository.addToFriends(1, friend.getId());
+
+        assertEquals(List.of(friend), userRepository.getFriends(1));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from FRIENDS_REQUESTS " +
+                "where USER_ID_FROM = 1 and USER_ID_TO = ?", Integer.class, friend.getId()));
+        userRepository.deleteFromFriends(1, friend.getId());
+        assertEquals(List.of(), userRepository.getFriends(1));
+    }
+
     @Test
     public void shouldAddToFriends() {
         User friend = new User();
@@ -166,4 +195,99 @@ public class JdbcUserRepositoryTest {
         assertEquals(List.of(friend), userRepository.getConfirmFriends(1));
         assertEquals(List.of(userRepository.get(1).get()), userRepository.getConfirmFriends(friend.getId()));
     }
+
+    @Test
+    public void shouldReturnUsersPageAfterCursor() {
+        User user2 = new User();
+
+        user2.setName("test name 2");
+        user2.setEmail("test2@test2.ru");
+        user2.setBirthday(LocalDate.of(2000, 2, 12));
+        user2.setLogin("test login 2");
+        userRepository.create(user2);
+
+        User user3 = new User();
+
+        user3.setName("test name 3");
+        user3.setEmail("test3@test3.ru");
+        user3.setBirthday(LocalDate.of(2000, 3, 12));
+        user3.setLogin("test login 3");
+        userRepository.create(user3);
+
+        assertEquals(List.of(userRepository.get(1).get(), user2), userRepository.getPage(null, 2));
+        assertEquals(List.of(user3), userRepository.getPage(user2.getId(), 2));
+        assertEquals(new ArrayList<>(), userRepository.getPage(user3.getId(), 2));
+
+        userRepository.addToFriends(1, user2.getId());
+        userRepository.addToFriends(1, user3.getId());
+        userRepository.addToFriends(user3.getId(), 1);
+        assertEquals(List.of(user2), userRepository.getFriends(1, null, 1));
+        assertEquals(List.of(user3), userRepository.getFriends(1, user2.getId(), 1));
+        assertEquals(List.of(user3), userRepository.getConfirmFriends(1, null, 10));
+    }
+
+    @Test
+    public void shouldCheckUserExists() {
+        assertTrue(userRepository.exists(1));
+        assertTrue(userRepository.exists(1));
+        assertFalse(userRepository.exists(9999));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    public void shouldNotQueryKnownUser() {
+        assertTrue(userRepository.exists(1));
+        jdbcTemplate.update("delete from USERS where USER_ID = 1");
+        // id уже известен: запрос к БД не выполняется, поэтому удаление в обход репозитория не видно
+        assertTrue(userRepository.exists(1));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    public void shouldNotKnowUserCreatedInRolledBackTransaction() {
+        User user = new User();
+
+        user.setName("test name 2");
+        user.setEmail("test2@test2.ru");
+        user.setBirthday(LocalDate.of(2000, 2, 12));
+        user.setLogin("test login 2");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userRepository.create(user);
+            status.setRollbackOnly();
+        });
+        assertFalse(userRepository.exists(user.getId()));
+    }
+
+    @Test
+    public void shouldReturnCommonFriends() {
+        shouldReturnUsersPageAfterCursor();
+        userRepository.addToFriends(3, 2);
+
+        assertEquals(List.of(userRepository.get(2).get()), userRepository.getCommonFriends(1, 3));
+        assertEquals(List.of(), userRepository.getCommonFriends(1, 2));
+    }
+
+    @Test
+    public void shouldRecommendFriendsOfFriends() {
+        shouldReturnUsersPageAfterCursor();
+        userRepository.addToFriends(3, 2);
+
+        assertEquals(List.of(), userRepository.getFriendRecommendations(1, 10));
+
+        userRepository.deleteFromFriends(1, 2);
+
+        assertEquals(List.of(userRepository.get(2).get()), userRepository.getFriendRecommendations(1, 10));
+        assertEquals(List.of(), userRepository.getFriendRecommendations(2, 10));
+    }
+
+    @Test
+    public void shouldReturnUsersByIdsInGivenOrder() {
+        shouldReturnUsersPageAfterCursor();
+
+        assertEquals(List.of(userRepository.get(3).get(), userRepository.get(1).get()),
+                userRepository.getByIds(List.of(3, 9999, 1)));
+        assertEquals(List.of(), userRepository.getByIds(List.of()));
+    }
 }
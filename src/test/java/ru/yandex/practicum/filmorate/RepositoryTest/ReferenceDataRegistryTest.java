@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.RepositoryTest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.repository.film.dao.DbFilmsRepository;
+import ru.yandex.practicum.filmorate.service.ReferenceDataRegistry;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка {@link ReferenceDataRegistry} на справочниках из миграций. Перезагрузка по расписанию в JdbcTest
+ * не запускается, поэтому {@link ReferenceDataRegistry#scheduledRefresh()} вызывается напрямую.
+ */
+@JdbcTest
+@Import({DbFilmsRepository.class, ReferenceDataRegistry.class})
+@Sql(scripts = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+public class ReferenceDataRegistryTest {
+    @Autowired
+    private ReferenceDataRegistry registry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void shouldPreloadReferenceDataAtStartup() {
+        assertEquals(1, registry.getVersion());
+        assertEquals(List.of("Комедия", "Драма", "Мультфильм", "Триллер", "Документальный", "Боевик"),
+                registry.getGenres().stream().map(Film.Genre::getName).collect(Collectors.toList()));
+        assertEquals(List.of(1, 2, 3, 4, 5, 6),
+                registry.getGenres().stream().map(Film.Genre::getId).collect(Collectors.toList()));
+        assertEquals(List.of("G", "PG", "PG-13", "R", "NC-17"),
+                registry.getMpa().stream().map(Film.MotionPictureAssociation::getName).collect(Collectors.toList()));
+        assertThrows(UnsupportedOperationException.class, () -> registry.getGenres().clear());
+        assertThrows(UnsupportedOperationException.class, () -> registry.getMpa().clear());
+    }
+
+    @Test
+    public void shouldFindReferenceDataById() {
+        for (Film.Genre genre : registry.getGenres()) {
+            assertSame(genre, registry.getGenre(genre.getId()));
+        }
+        for (Film.MotionPictureAssociation mpa : registry.getMpa()) {
+            assertSame(mpa, registry.getMpa(mpa.getId()));
+        }
+        assertEquals("Драма", registry.getGenre(2).getName());
+        assertEquals("PG-13", registry.getMpa(3).getName());
+    }
+
+    @Test
+    public void shouldReturnNullForUnknownOrOutOfRangeId() {
+        for (int id : new int[]{Integer.MIN_VALUE, -1, 0, 7, Integer.MAX_VALUE}) {
+            assertNull(registry.getGenre(id), "genre " + id);
+        }
+        for (int id : new int[]{Integer.MIN_VALUE, -1, 0, 6, Integer.MAX_VALUE}) {
+            assertNull(registry.getMpa(id), "mpa " + id);
+        }
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    public void shouldReloadReferenceDataOnScheduledRefresh() {
+        long version = registry.getVersion();
+
+        jdbcTemplate.update("insert into GENRES (GENRE_ID, GENRE_NAME) values (10, 'Вестерн')");
+        jdbcTemplate.update("update MPA set MPA = 'PG-13+' where MPA_ID = 3");
+
+        assertNull(registry.getGenre(10));
+        assertEquals("PG-13", registry.getMpa(3).getName());
+
+        registry.scheduledRefresh();
+
+        assertEquals(version + 1, registry.getVersion());
+        assertEquals(7, registry.getGenres().size());
+        assertEquals("Вестерн", registry.getGenre(10).getName());
+        assertNull(registry.getGenre(9));
+        assertNull(registry.getGenre(11));
+        assertEquals("PG-13+", registry.getMpa(3).getName());
+
+        jdbcTemplate.update("delete from GENRES where GENRE_ID = 10");
+        registry.scheduledRefresh();
+
+        assertEquals(version + 2, registry.getVersion());
+        assertNull(registry.getGenre(10));
+        assertEquals(6, registry.getGenres().size());
+    }
+}
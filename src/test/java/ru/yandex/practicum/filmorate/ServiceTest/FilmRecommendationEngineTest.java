@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.ServiceTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.in_memory.InMemoryFilmsRepository;
+import ru.yandex.practicum.filmorate.service.FilmRecommendationEngine;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilmRecommendationEngineTest {
+    @Test
+    public void shouldRecommendFilmsLikedWithUserFilms() {
+        FilmRepository repository = new InMemoryFilmsRepository();
+
+        for (int i = 0; i < 4; i++) {
+            repository.create(new Film());
+        }
+        repository.addLike(1, 1);
+        repository.addLike(2, 1);
+        repository.addLike(1, 2);
+        repository.addLike(2, 2);
+        repository.addLike(3, 2);
+        repository.addLike(3, 3);
+        repository.addLike(4, 3);
+
+        FilmRecommendationEngine engine = new FilmRecommendationEngine(repository, true);
+
+        engine.rebuild();
+
+        assertEquals(List.of(3), engine.recommend(1, 10));
+        assertEquals(List.of(1, 2), engine.recommend(3, 10));
+        assertEquals(List.of(), engine.recommend(9999, 10));
+
+        engine.onLikesChanged(List.of(new LikeChange(4, 1, true)));
+
+        assertEquals(List.of(3), engine.recommend(1, 10));
+        assertEquals(List.of(4), engine.recommend(2, 10));
+
+        engine.onLikesChanged(List.of(new LikeChange(3, 2, false)));
+
+        assertEquals(List.of(4), engine.recommend(2, 10));
+        assertEquals(List.of(1, 2), engine.recommend(3, 10));
+    }
+
+    @Test
+    public void shouldKeepLikesChangedDuringRebuild() {
+        InterleavingFilmsRepository repository = new InterleavingFilmsRepository();
+
+        for (int i = 0; i < 3; i++) {
+            repository.create(new Film());
+        }
+        repository.addLike(1, 1);
+        repository.addLike(1, 2);
+
+        FilmRecommendationEngine engine = new FilmRecommendationEngine(repository, true);
+
+        repository.interleave(() -> {
+            // записан до чтения, оповещение придет во время построения
+            repository.addLike(2, 2);
+        }, () -> {
+            engine.onLikesChanged(List.of(new LikeChange(2, 2, true)));
+            // записаны после чтения
+            repository.addLike(3, 2);
+            repository.deleteLike(2, 2);
+            engine.onLikesChanged(List.of(new LikeChange(3, 2, true), new LikeChange(2, 2, false)));
+        });
+
+        engine.rebuild();
+
+        assertTrue(engine.isReady());
+        assertEquals(List.of(3), engine.recommend(1, 10));
+
+        repository.interleave(() -> {
+        }, () -> engine.onLikesChanged(List.of(new LikeChange(3, 2, false))));
+        repository.deleteLike(3, 2);
+        engine.rebuild();
+
+        assertEquals(List.of(), engine.recommend(1, 10));
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.ServiceTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.in_memory.InMemoryFilmsRepository;
+import ru.yandex.practicum.filmorate.service.PopularFilmsIndex;
+import ru.yandex.practicum.filmorate.service.search.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.service.search.FilmTokenizer;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilmSearchIndexTest {
+    @Test
+    public void shouldTokenizeCyrillicTextIgnoringCase() {
+        assertEquals(List.of("елки", "2010", "новый", "год"), FilmTokenizer.tokenize("Ёлки-2010: Новый год!"));
+        assertEquals(List.of(), FilmTokenizer.tokenize(null));
+    }
+
+    @Test
+    public void shouldFindFilmsContainingAllQueryWords() {
+        FilmRepository repository = new InMemoryFilmsRepository();
+
+        repository.create(createFilm("Ёлки", "Новогодняя комедия"));
+        repository.create(createFilm("Ирония судьбы", "Новогодняя комедия о бане"));
+        repository.create(createFilm("Брат", "Криминальная драма"));
+
+        PopularFilmsIndex popularFilms = new PopularFilmsIndex(repository, true);
+        FilmSearchIndex searchIndex = new FilmSearchIndex(repository, popularFilms, 0.1);
+
+        popularFilms.rebuild();
+        searchIndex.rebuild();
+
+        assertEquals(List.of(1, 2), searchIndex.search("новогодняя КОМЕДИЯ", 10));
+        assertEquals(List.of(1), searchIndex.search("елки комедия", 10));
+        assertEquals(List.of(), searchIndex.search("комедия драма", 10));
+
+        repository.addLike(2, 1);
+        popularFilms.rebuild();
+
+        assertEquals(List.of(2, 1), searchIndex.search("новогодняя комедия", 10));
+
+        Film film = createFilm("Брат 2", "Криминальный боевик");
+
+        film.setId(3);
+        searchIndex.index(film);
+
+        assertEquals(List.of(), searchIndex.search("драма", 10));
+        assertEquals(List.of(3), searchIndex.search("боевик", 10));
+    }
+
+    private static Film createFilm(String name, String description) {
+        Film film = new Film();
+
+        film.setName(name);
+        film.setDescription(description);
+        return film;
+    }
+}
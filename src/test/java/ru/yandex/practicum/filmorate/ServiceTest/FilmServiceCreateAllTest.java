@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.ServiceTest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.film.FilmSuggestion;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsIndex;
+import ru.yandex.practicum.filmorate.service.search.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.service.search.FilmTitleAutocomplete;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Фильмы, созданные {@link FilmService#createAll(List)}, попадают в рейтинг популярных, поиск и подсказки названий
+ * только после фиксации транзакции.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@Sql(scripts = "classpath:data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+public class FilmServiceCreateAllTest {
+    @Autowired
+    private FilmService filmService;
+    @Autowired
+    private PopularFilmsIndex popularFilms;
+    @Autowired
+    private FilmSearchIndex searchIndex;
+    @Autowired
+    private FilmTitleAutocomplete titleAutocomplete;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void shouldIndexFilmsAfterCommit() {
+        List<Integer> ids = filmService.createAll(List.of(createFilm("Солярис"), createFilm("Сталкер")));
+
+        assertTrue(popularFilms.getTop(1000).containsAll(ids));
+        assertEquals(List.of(ids.get(0)), searchIndex.search("Солярис", 10));
+        assertEquals(List.of(ids.get(1)), suggestedIds("Стал"));
+    }
+
+    @Test
+    public void shouldNotIndexFilmsWhenTransactionRolledBack() {
+        List<Integer> top = popularFilms.getTop(1000);
+        List<Integer> ids = new TransactionTemplate(transactionManager).execute(status -> {
+            List<Integer> created = filmService.createAll(List.of(createFilm("Зеркало"),
+                    createFilm("Жертвоприношение")));
+
+            status.setRollbackOnly();
+            return created;
+        });
+
+        assertEquals(2, ids.size());
+        assertEquals(top, popularFilms.getTop(1000));
+        assertEquals(List.of(), searchIndex.search("Зеркало", 10));
+        assertEquals(List.of(), suggestedIds("Жертв"));
+    }
+
+    private List<Integer> suggestedIds(String prefix) {
+        return titleAutocomplete.suggest(prefix, 10).stream()
+                .map(FilmSuggestion::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static Film createFilm(String name) {
+        Film film = new Film();
+
+        film.setName(name);
+        film.setDescription("description");
+        film.setReleaseDate(LocalDate.of(1975, 3, 7));
+        film.setDuration(100);
+        film.setMpa(Film.MotionPictureAssociation.of(1, null));
+        return film;
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.ServiceTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.film.FilmSuggestion;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.in_memory.InMemoryFilmsRepository;
+import ru.yandex.practicum.filmorate.service.PopularFilmsIndex;
+import ru.yandex.practicum.filmorate.service.search.FilmTitleAutocomplete;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilmTitleAutocompleteTest {
+    @Test
+    public void shouldSuggestPopularFilmsByPrefixOfAnyWord() {
+        FilmRepository repository = new InMemoryFilmsRepository();
+
+        repository.create(createFilm("Брат"));
+        repository.create(createFilm("Брат 2"));
+        repository.create(createFilm("Бриллиантовая рука"));
+        repository.create(createFilm("Старший брат"));
+        repository.addLike(2, 1);
+        repository.addLike(4, 1);
+        repository.addLike(4, 2);
+
+        PopularFilmsIndex popularFilms = new PopularFilmsIndex(repository, true);
+        FilmTitleAutocomplete autocomplete = new FilmTitleAutocomplete(repository, popularFilms);
+
+        popularFilms.rebuild();
+        autocomplete.rebuild();
+
+        assertEquals(List.of(4, 2, 1, 3), ids(autocomplete.suggest("бр", 10)));
+        assertEquals(List.of(4, 2), ids(autocomplete.suggest("БР", 2)));
+        assertEquals(List.of(4, 2, 1), ids(autocomplete.suggest("Брат ", 10)));
+        assertEquals(List.of(4), ids(autocomplete.suggest("ст", 10)));
+        assertEquals(List.of(), autocomplete.suggest("ы", 10));
+        assertEquals(List.of(), autocomplete.suggest(" ", 10));
+
+        Film film = createFilm("Сибирский цирюльник");
+
+        film.setId(4);
+        autocomplete.index(film);
+
+        assertEquals(List.of(2, 1, 3), ids(autocomplete.suggest("бр", 10)));
+        assertEquals(List.of(new FilmSuggestion(4, "Сибирский цирюльник")), autocomplete.suggest("цир", 10));
+    }
+
+    @Test
+    public void shouldKeepFilmIndexedDuringRebuild() {
+        List<Runnable> afterRead = new ArrayList<>();
+        FilmRepository repository = new InMemoryFilmsRepository() {
+            @Override
+            public void forEach(Consumer<? super Film> action) {
+                super.forEach(action);
+                afterRead.forEach(Runnable::run);
+            }
+        };
+
+        repository.create(createFilm("Брат"));
+        repository.create(createFilm("Брат 2"));
+
+        PopularFilmsIndex popularFilms = new PopularFilmsIndex(repository, true);
+        FilmTitleAutocomplete autocomplete = new FilmTitleAutocomplete(repository, popularFilms);
+        Film film = createFilm("Сибирский цирюльник");
+
+        popularFilms.rebuild();
+        film.setId(2);
+        // фильм переименован после чтения репозитория, но до публикации нового дерева
+        afterRead.add(() -> autocomplete.index(film));
+        autocomplete.rebuild();
+
+        assertEquals(List.of(1), ids(autocomplete.suggest("бр", 10)));
+        assertEquals(List.of(new FilmSuggestion(2, "Сибирский цирюльник")), autocomplete.suggest("сиб", 10));
+    }
+
+    private static List<Integer> ids(List<FilmSuggestion> suggestions) {
+        return suggestions.stream().map(FilmSuggestion::getId).collect(Collectors.toList());
+    }
+
+    private static Film createFilm(String name) {
+        Film film = new Film();
+
+        film.setName(name);
+        film.setDescription("Описание");
+        return film;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.ServiceTest;
+
+import ru.yandex.practicum.filmorate.repository.film.in_memory.InMemoryFilmsRepository;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Репозиторий фильмов в памяти, выполняющий заданные действия до и после чтения всех лайков.
+ * Позволяет изменить лайки во время построения индекса.
+ */
+class InterleavingFilmsRepository extends InMemoryFilmsRepository {
+    private Runnable beforeRead = () -> {
+    };
+    private Runnable afterRead = () -> {
+    };
+
+    void interleave(Runnable beforeRead, Runnable afterRead) {
+        this.beforeRead = beforeRead;
+        this.afterRead = afterRead;
+    }
+
+    @Override
+    public void forEachLike(BiConsumer<Integer, Integer> action) {
+        beforeRead.run();
+        super.forEachLike(action);
+        afterRead.run();
+    }
+}
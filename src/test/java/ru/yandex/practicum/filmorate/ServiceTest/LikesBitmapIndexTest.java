@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.ServiceTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.in_memory.InMemoryFilmsRepository;
+import ru.yandex.practicum.filmorate.service.LikesBitmapIndex;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LikesBitmapIndexTest {
+    @Test
+    public void shouldIntersectLikesOfFilmsAndUsers() {
+        FilmRepository repository = new InMemoryFilmsRepository();
+
+        for (int i = 0; i < 3; i++) {
+            repository.create(new Film());
+        }
+        repository.addLike(1, 1);
+        repository.addLike(1, 2);
+        repository.addLike(1, 100_000);
+        repository.addLike(2, 2);
+        repository.addLike(2, 100_000);
+        repository.addLike(3, 1);
+
+        LikesBitmapIndex index = new LikesBitmapIndex(repository);
+
+        index.rebuild();
+
+        assertEquals(3, index.getLikesCount(1));
+        assertEquals(0, index.getLikesCount(9999));
+        assertArrayEquals(new int[]{2, 100_000}, index.getCommonLikers(1, 2));
+        assertArrayEquals(new int[]{1, 2}, index.getCommonLikedFilms(2, 100_000));
+        assertArrayEquals(new int[]{1}, index.getCommonLikedFilms(1, 2));
+        assertArrayEquals(new int[0], index.getCommonLikers(1, 9999));
+
+        index.onLikesChanged(List.of(new LikeChange(1, 2, false), new LikeChange(3, 2, true)));
+
+        assertEquals(2, index.getLikesCount(1));
+        assertArrayEquals(new int[]{100_000}, index.getCommonLikers(1, 2));
+        assertArrayEquals(new int[]{3}, index.getCommonLikedFilms(1, 2));
+    }
+
+    @Test
+    public void shouldKeepLikesChangedDuringRebuild() {
+        InterleavingFilmsRepository repository = new InterleavingFilmsRepository();
+
+        for (int i = 0; i < 2; i++) {
+            repository.create(new Film());
+        }
+        repository.addLike(1, 1);
+
+        LikesBitmapIndex index = new LikesBitmapIndex(repository);
+
+        repository.interleave(() -> repository.addLike(1, 2), () -> {
+            index.onLikesChanged(List.of(new LikeChange(1, 2, true)));
+            repository.addLike(2, 1);
+            repository.deleteLike(1, 1);
+            index.onLikesChanged(List.of(new LikeChange(2, 1, true), new LikeChange(1, 1, false)));
+        });
+
+        // индекс строится при первом обращении
+        assertEquals(1, index.getLikesCount(1));
+        assertArrayEquals(new int[]{2}, index.getCommonLikedFilms(1, 1));
+        assertArrayEquals(new int[]{1}, index.getCommonLikedFilms(2, 2));
+    }
+
+    @Test
+    public void shouldWaitForRunningBuildInsteadOfStartingAnother() throws InterruptedException {
+        InterleavingFilmsRepository repository = new InterleavingFilmsRepository();
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch readStarted = new CountDownLatch(1);
+
+        repository.create(new Film());
+        repository.addLike(1, 1);
+        repository.interleave(() -> {
+            reads.incrementAndGet();
+            readStarted.countDown();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, () -> {
+        });
+
+        LikesBitmapIndex index = new LikesBitmapIndex(repository);
+        Thread startup = new Thread(index::rebuild);
+
+        startup.start();
+        readStarted.await();
+        assertEquals(1, index.getLikesCount(1));
+        startup.join();
+        assertEquals(1, reads.get());
+    }
+}
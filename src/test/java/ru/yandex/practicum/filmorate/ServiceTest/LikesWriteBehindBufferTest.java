@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.ServiceTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.LikesOverloadException;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
+import ru.yandex.practicum.filmorate.repository.film.in_memory.InMemoryFilmsRepository;
+import ru.yandex.practicum.filmorate.service.FilmLikesListener;
+import ru.yandex.practicum.filmorate.service.LikesWriteBehindBuffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LikesWriteBehindBufferTest {
+    /**
+     * Интервал периодической записи, за время теста запись по расписанию не выполняется.
+     */
+    private static final long NEVER_MS = TimeUnit.HOURS.toMillis(1);
+
+    @Test
+    public void shouldCoalesceChangesOfSamePair() {
+        RecordingFilmsRepository repository = new RecordingFilmsRepository(2);
+        List<LikeChange> notified = Collections.synchronizedList(new ArrayList<>());
+        LikesWriteBehindBuffer buffer = createBuffer(repository, notified::addAll, 10, 10, 3);
+
+        buffer.addLike(1, 1);
+        buffer.deleteLike(1, 1);
+        buffer.addLike(1, 1);
+        buffer.addLike(2, 1);
+        buffer.deleteLike(2, 1);
+        buffer.flush();
+
+        assertEquals(List.of(List.of(new LikeChange(1, 1, true), new LikeChange(2, 1, false))), repository.batches);
+        assertEquals(Set.of(1), repository.getLikers(1));
+        assertEquals(List.of(new LikeChange(1, 1, true)), notified);
+    }
+
+    @Test
+    public void shouldFlushInBatchesOfMaxBatchSize() throws InterruptedException {
+        RecordingFilmsRepository repository = new RecordingFilmsRepository(1);
+        LikesWriteBehindBuffer buffer = createBuffer(repository, changes -> {
+        }, 2, 100, 3);
+
+        for (int userId = 1; userId <= 5; userId++) {
+            buffer.addLike(1, userId);
+        }
+        buffer.shutdown();
+
+        assertFalse(repository.batches.isEmpty());
+        repository.batches.forEach(batch -> assertTrue(batch.size() <= 2));
+        assertEquals(Set.of(1, 2, 3, 4, 5), repository.getLikers(1));
+    }
+
+    @Test
+    public void shouldRetryFailedBatch() {
+        RecordingFilmsRepository repository = new RecordingFilmsRepository(1);
+        LikesWriteBehindBuffer buffer = createBuffer(repository, changes -> {
+        }, 10, 10, 3);
+
+        repository.failing = change -> true;
+        buffer.addLike(1, 1);
+        buffer.addLike(1, 2);
+        buffer.flush();
+        assertEquals(Set.of(), repository.getLikers(1));
+
+        repository.failing = change -> false;
+        buffer.flush();
+        assertEquals(Set.of(1, 2), repository.getLikers(1));
+    }
+
+    @Test
+    public void shouldIsolateAndDropPoisonChange() {
+        RecordingFilmsRepository repository = new RecordingFilmsRepository(1);
+        LikesWriteBehindBuffer buffer = createBuffer(repository, changes -> {
+        }, 10, 10, 2);
+
+        repository.failing = change -> change.getUserId() == 2;
+        buffer.addLike(1, 1);
+        buffer.addLike(1, 2);
+        buffer.addLike(1, 3);
+        buffer.flush();
+        // изменения, записанные по одному, не ждут исправления ошибочного
+        assertEquals(Set.of(1, 3), repository.getLikers(1));
+
+        buffer.flush();
+        // после max-retries попыток ошибочное изменение отброшено
+        int attempts = repository.batches.size();
+
+        buffer.flush();
+        assertEquals(attempts, repository.batches.size());
+        assertEquals(Set.of(1, 3), repository.getLikers(1));
+    }
+
+    @Test
+    public void shouldRejectChangeWhenBufferIsFull() throws InterruptedException {
+        RecordingFilmsRepository repository = new RecordingFilmsRepository(1);
+        CountDownLatch isWriting = new CountDownLatch(1);
+        CountDownLatch canWrite = new CountDownLatch(1);
+        LikesWriteBehindBuffer buffer = createBuffer(repository, changes -> {
+        }, 10, 2, 3);
+
+        repository.beforeApply = () -> {
+            isWriting.countDown();
+            await(canWrite);
+        };
+        buffer.addLike(1, 1);
+        buffer.addLike(1, 2);
+        // буфер заполнен: запрос ставит запись в очередь и ждет места, пока пакет записывается
+        assertThrows(LikesOverloadException.class, () -> buffer.addLike(1, 3));
+        assertTrue(isWriting.await(10, TimeUnit.SECONDS));
+
+        canWrite.countDown();
+        buffer.addLike(1, 3);
+        buffer.shutdown();
+
+        assertEquals(Set.of(1, 2, 3), repository.getLikers(1));
+    }
+
+    @Test
+    public void shouldFlushRemainingChangesOnShutdown() throws InterruptedException {
+        RecordingFilmsRepository repository = new RecordingFilmsRepository(1);
+        List<LikeChange> notified = Collections.synchronizedList(new ArrayList<>());
+        LikesWriteBehindBuffer buffer = createBuffer(repository, notified::addAll, 10, 10, 3);
+
+        buffer.addLike(1, 1);
+        buffer.addLike(1, 2);
+        buffer.shutdown();
+
+        assertEquals(Set.of(1, 2), repository.getLikers(1));
+        assertEquals(List.of(new LikeChange(1, 1, true), new LikeChange(1, 2, true)), notified);
+    }
+
+    private static LikesWriteBehindBuffer createBuffer(RecordingFilmsRepository repository, FilmLikesListener listener,
+                                                       int maxBatchSize, int capacity, int maxRetries) {
+        return new LikesWriteBehindBuffer(repository, List.of(listener), true, NEVER_MS, maxBatchSize, capacity, 500,
+                maxRetries);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Репозиторий фильмов в памяти, запоминающий записанные пакеты лайков и отклоняющий пакеты
+     * с заданными изменениями.
+     */
+    private static class RecordingFilmsRepository extends InMemoryFilmsRepository {
+        private final List<List<LikeChange>> batches = Collections.synchronizedList(new ArrayList<>());
+        private volatile Predicate<LikeChange> failing = change -> false;
+        private volatile Runnable beforeApply = () -> {
+        };
+
+        private RecordingFilmsRepository(int filmsCount) {
+            for (int i = 0; i < filmsCount; i++) {
+                create(new Film());
+            }
+        }
+
+        @Override
+        public boolean[] applyLikes(List<LikeChange> changes) {
+            beforeApply.run();
+            batches.add(List.copyOf(changes));
+            if (changes.stream().anyMatch(failing)) throw new IllegalStateException("Ошибка записи лайков");
+            return super.applyLikes(changes);
+        }
+
+        private Set<Integer> getLikers(int filmId) {
+            Set<Integer> likers = new HashSet<>();
+
+            forEachLike((userId, likedFilmId) -> {
+                if (likedFilmId == filmId) likers.add(userId);
+            });
+            return likers;
+        }
+    }
+}
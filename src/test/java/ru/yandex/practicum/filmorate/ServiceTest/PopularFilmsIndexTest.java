@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.ServiceTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.film.Film;
+import ru.yandex.practicum.filmorate.model.film.LikeChange;
+import ru.yandex.practicum.filmorate.service.PopularFilmsIndex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PopularFilmsIndexTest {
+    @Test
+    public void shouldRankFilmsByLikes() {
+        InterleavingFilmsRepository repository = createRepository(3);
+        PopularFilmsIndex index = new PopularFilmsIndex(repository, true);
+
+        repository.addLike(2, 1);
+        repository.addLike(2, 2);
+        repository.addLike(3, 1);
+        assertFalse(index.isReady());
+
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(2, 3), index.getTop(2));
+        assertEquals(2, index.getLikes(2));
+        assertEquals(0, index.getLikes(9999));
+
+        index.onLikesChanged(List.of(new LikeChange(1, 1, true), new LikeChange(1, 2, true),
+                new LikeChange(2, 1, false)));
+        index.addFilm(4);
+
+        assertEquals(List.of(1, 2, 3, 4), index.getTop(10));
+        assertEquals(1, index.getLikes(2));
+    }
+
+    @Test
+    public void shouldKeepLikesChangedDuringRebuild() {
+        InterleavingFilmsRepository repository = createRepository(4);
+        PopularFilmsIndex index = new PopularFilmsIndex(repository, true);
+
+        repository.addLike(1, 1);
+        repository.addLike(1, 2);
+        index.rebuild();
+        repository.interleave(() -> {
+            // записан до чтения, но оповещение придет во время построения - не должен учитываться дважды
+            repository.addLike(2, 1);
+        }, () -> {
+            index.onLikesChanged(List.of(new LikeChange(2, 1, true)));
+            // записаны после чтения - должны попасть в новый рейтинг
+            repository.addLike(3, 1);
+            repository.deleteLike(1, 2);
+            index.onLikesChanged(List.of(new LikeChange(3, 1, true), new LikeChange(1, 2, false)));
+            index.addFilm(4);
+        });
+
+        index.rebuild();
+
+        assertEquals(1, index.getLikes(1));
+        assertEquals(1, index.getLikes(2));
+        assertEquals(1, index.getLikes(3));
+        assertEquals(List.of(1, 2, 3, 4), index.getTop(10));
+
+        repository.interleave(() -> {
+        }, () -> {
+        });
+        index.onLikesChanged(List.of(new LikeChange(3, 2, true)));
+
+        assertEquals(List.of(3, 1, 2, 4), index.getTop(10));
+    }
+
+    @Test
+    public void shouldKeepLikesChangedDuringFirstRebuild() {
+        InterleavingFilmsRepository repository = createRepository(2);
+        PopularFilmsIndex index = new PopularFilmsIndex(repository, true);
+
+        repository.interleave(() -> {
+        }, () -> {
+            repository.addLike(2, 1);
+            index.onLikesChanged(List.of(new LikeChange(2, 1, true)));
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(2, 1), index.getTop(10));
+        assertEquals(1, index.getLikes(2));
+    }
+
+    @Test
+    public void shouldRankFilmsWithoutLikes() {
+        InterleavingFilmsRepository repository = createRepository(3);
+        PopularFilmsIndex index = new PopularFilmsIndex(repository, true);
+
+        repository.addLike(3, 1);
+        index.rebuild();
+
+        assertEquals(List.of(3, 1, 2), index.getTop(10));
+        assertEquals(0, index.getLikes(1));
+    }
+
+    @Test
+    public void shouldNotMakeLikesNegative() {
+        InterleavingFilmsRepository repository = createRepository(2);
+        PopularFilmsIndex index = new PopularFilmsIndex(repository, true);
+
+        index.rebuild();
+        index.onLikesChanged(List.of(new LikeChange(1, 1, false), new LikeChange(2, 1, true)));
+
+        assertEquals(0, index.getLikes(1));
+        assertEquals(List.of(2, 1), index.getTop(10));
+    }
+
+    private static InterleavingFilmsRepository createRepository(int films) {
+        InterleavingFilmsRepository repository = new InterleavingFilmsRepository();
+
+        for (int i = 0; i < films; i++) {
+            repository.create(new Film());
+        }
+        return repository;
+    }
+}